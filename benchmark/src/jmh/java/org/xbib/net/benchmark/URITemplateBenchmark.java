@@ -0,0 +1,88 @@
+package org.xbib.net.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xbib.net.template.URITemplate;
+import org.xbib.net.template.vars.Variables;
+
+/**
+ * Compare parsing a URI template for every expansion with expanding templates from the template cache
+ * and expanding precompiled templates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1024m")
+@Threads(4)
+@Timeout(time = 10, timeUnit = TimeUnit.MINUTES)
+public class URITemplateBenchmark {
+
+	private static final String[] TEMPLATES = {
+			"/api/projects/{projectId}/releases/{version}",
+			"https://example.com/search{?q,page,size}",
+			"{+base}/items/{id}{?fields*}",
+			"/users/{user}/repos{/repo,branch}{?since,per_page}"
+	};
+
+	private final Variables variables = Variables.builder()
+			.add("projectId", "spring-boot")
+			.add("version", "2.3.0")
+			.add("q", "uri templates")
+			.add("page", "2")
+			.add("size", "50")
+			.add("base", "http://localhost:8080/api")
+			.add("id", "4711")
+			.add("fields", List.of("name", "description", "owner"))
+			.add("user", "jprante")
+			.add("repo", "net")
+			.add("branch", "main")
+			.add("since", "2022-01-01")
+			.add("per_page", "100")
+			.build();
+
+	private final URITemplate[] templates = new URITemplate[TEMPLATES.length];
+
+	{
+		for (int i = 0; i < TEMPLATES.length; i++) {
+			templates[i] = new URITemplate(TEMPLATES[i]);
+		}
+	}
+
+	@Benchmark
+	public void parseAndExpand(Blackhole bh) {
+		for (String template : TEMPLATES) {
+			bh.consume(new URITemplate(template).toString(variables));
+		}
+	}
+
+	@Benchmark
+	public void cachedExpand(Blackhole bh) {
+		for (String template : TEMPLATES) {
+			bh.consume(URITemplate.of(template).toString(variables));
+		}
+	}
+
+	@Benchmark
+	public void precompiledExpand(Blackhole bh) {
+		StringBuilder sb = new StringBuilder(128);
+		for (URITemplate template : templates) {
+			sb.setLength(0);
+			bh.consume(template.expand(variables, sb).length());
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package org.xbib.net.benchmark;
+
+import java.net.IDN;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xbib.net.Parameter;
+import org.xbib.net.PercentDecoder;
+import org.xbib.net.PercentEncoder;
+import org.xbib.net.PercentEncoders;
+import org.xbib.net.URL;
+import org.xbib.net.URLCodec;
+import org.xbib.net.URLParser;
+import org.xbib.net.URLResolver;
+
+/**
+ * Throughput of the URL hot paths over generated corpora, with {@link URI} and the JDK URL encoder
+ * and decoder as baselines where they offer the same operation. Every invocation handles one URL
+ * of the corpus, so the scores and the normalized allocation rate are per URL.
+ *
+ * Run with the GC profiler to see the allocation rate, for example
+ * {@code gradle :benchmark:jmh -PjmhInclude=URLBenchmark -PjmhProfilers=gc}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1024m")
+@Timeout(time = 10, timeUnit = TimeUnit.MINUTES)
+public class URLBenchmark {
+
+	private static final String[] RELATIVE = {
+			"child", "../sibling/page.html", "/absolute/path?x=1", "?query=only", "#fragment",
+			"//other.example.com/path", "./a/./b/../c", ""
+	};
+
+	@Param({ "ASCII", "IDN", "QUERY", "IPV6" })
+	public URLCorpus corpus;
+
+	private final URLParser parser = URL.parser(StandardCharsets.UTF_8, CodingErrorAction.REPORT);
+
+	private final PercentEncoder encoder = PercentEncoders.getQueryEncoder(StandardCharsets.UTF_8);
+
+	private final PercentDecoder decoder = new PercentDecoder();
+
+	private List<URLCorpus.Components> components;
+
+	private String[] urls;
+
+	private String[] encodedQueries;
+
+	private URL[] parsedURLs;
+
+	private byte[][] codedURLs;
+
+	private URLResolver[] resolvers;
+
+	private URI[] uris;
+
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		components = corpus.components();
+		int size = components.size();
+		urls = new String[size];
+		encodedQueries = new String[size];
+		parsedURLs = new URL[size];
+		codedURLs = new byte[size][];
+		resolvers = new URLResolver[size];
+		uris = new URI[size];
+		for (int i = 0; i < size; i++) {
+			URLCorpus.Components c = components.get(i);
+			urls[i] = c.toURLString();
+			encodedQueries[i] = c.encodedQuery() != null ? c.encodedQuery() : "";
+			parsedURLs[i] = parser.parse(urls[i], false);
+			codedURLs[i] = URLCodec.encode(parsedURLs[i]);
+			resolvers[i] = URL.base(parsedURLs[i]);
+			uris[i] = new URI(urls[i]);
+		}
+	}
+
+	private int next() {
+		int i = index;
+		index = (i + 1) & (URLCorpus.SIZE - 1);
+		return i;
+	}
+
+	@Benchmark
+	public URL parse() throws Exception {
+		return parser.parse(urls[next()], false);
+	}
+
+	@Benchmark
+	public byte[] encodeBinary() {
+		return URLCodec.encode(parsedURLs[next()]);
+	}
+
+	@Benchmark
+	public URL decodeBinary() {
+		return URLCodec.decode(codedURLs[next()]);
+	}
+
+	@Benchmark
+	public URI parseURI() throws URISyntaxException {
+		return new URI(urls[next()]);
+	}
+
+	@Benchmark
+	public String build() {
+		URLCorpus.Components c = components.get(next());
+		return URL.builder()
+				.scheme(c.scheme())
+				.host(c.host())
+				.port(c.port() != -1 ? c.port() : null)
+				.path(c.encodedPath())
+				.query(c.encodedQuery())
+				.fragment(c.fragment())
+				.build()
+				.toExternalForm();
+	}
+
+	@Benchmark
+	public String buildURI() throws URISyntaxException {
+		URLCorpus.Components c = components.get(next());
+		// URI does not accept non-ASCII host names
+		String host = c.host().startsWith("[") ? c.host() : IDN.toASCII(c.host());
+		return new URI(c.scheme(), null, host, c.port(), c.path(), c.query(), c.fragment()).toASCIIString();
+	}
+
+	@Benchmark
+	public String toExternalForm() throws Exception {
+		// parse again, the external form of a URL instance is memoized
+		return parser.parse(urls[next()], false).toExternalForm();
+	}
+
+	@Benchmark
+	public String toExternalFormURI() throws URISyntaxException {
+		return new URI(urls[next()]).toASCIIString();
+	}
+
+	@Benchmark
+	public String encode() throws Exception {
+		String query = components.get(next()).query();
+		return query != null ? encoder.encode(query) : null;
+	}
+
+	@Benchmark
+	public String encodeJDK() {
+		String query = components.get(next()).query();
+		return query != null ? URLEncoder.encode(query, StandardCharsets.UTF_8) : null;
+	}
+
+	@Benchmark
+	public String decode() throws Exception {
+		return decoder.decode(encodedQueries[next()]);
+	}
+
+	@Benchmark
+	public String decodeJDK() {
+		return URLDecoder.decode(encodedQueries[next()], StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public URL resolve() throws Exception {
+		int i = next();
+		return resolvers[i].resolve(RELATIVE[i & (RELATIVE.length - 1)]);
+	}
+
+	@Benchmark
+	public URI resolveURI() {
+		int i = next();
+		return uris[i].resolve(RELATIVE[i & (RELATIVE.length - 1)]);
+	}
+
+	@Benchmark
+	public Parameter parameters() {
+		return Parameter.builder()
+				.domain(Parameter.Domain.QUERY)
+				.add(encodedQueries[next()], StandardCharsets.UTF_8)
+				.build();
+	}
+}
@@ -0,0 +1,156 @@
+package org.xbib.net.benchmark;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generated URL corpora for the URL benchmarks. Each corpus is generated from a fixed seed, so every run
+ * sees the same URLs.
+ */
+public enum URLCorpus {
+
+	/**
+	 * Plain ASCII URLs with short paths and queries.
+	 */
+	ASCII {
+		@Override
+		Components next(Random random, int n) {
+			String scheme = random.nextBoolean() ? "http" : "https";
+			String host = "www." + word(random) + n + ".com";
+			String path = "/" + word(random) + "/" + word(random) + n + "/index.html";
+			String query = random.nextInt(3) == 0 ? null : "id=" + n + "&lang=en";
+			String fragment = random.nextInt(5) == 0 ? "section" + n : null;
+			return new Components(scheme, host, -1, path, query, fragment);
+		}
+	},
+	/**
+	 * URLs with internationalized host names and non-ASCII path segments.
+	 */
+	IDN {
+		@Override
+		Components next(Random random, int n) {
+			String host = IDN_HOSTS[random.nextInt(IDN_HOSTS.length)].replace("*", Integer.toString(n));
+			String path = "/" + IDN_WORDS[random.nextInt(IDN_WORDS.length)] + "/" + word(random) + n;
+			String query = "q=" + IDN_WORDS[random.nextInt(IDN_WORDS.length)];
+			return new Components("https", host, -1, path, query, null);
+		}
+	},
+	/**
+	 * URLs with long query strings, as produced by search forms and tracking links.
+	 */
+	QUERY {
+		@Override
+		Components next(Random random, int n) {
+			StringBuilder sb = new StringBuilder();
+			int count = 10 + random.nextInt(20);
+			for (int i = 0; i < count; i++) {
+				if (i > 0) {
+					sb.append('&');
+				}
+				sb.append(QUERY_NAMES[random.nextInt(QUERY_NAMES.length)]).append('=')
+						.append(word(random)).append(' ').append(word(random)).append(random.nextInt(1000));
+			}
+			return new Components("https", "search.example.org", -1, "/results", sb.toString(), null);
+		}
+	},
+	/**
+	 * URLs with IPv6 address literals and explicit ports.
+	 */
+	IPV6 {
+		@Override
+		Components next(Random random, int n) {
+			String host = random.nextInt(4) == 0 ? "[::1]" :
+					"[2001:db8:" + Integer.toHexString(random.nextInt(0x10000)) + "::" +
+							Integer.toHexString(n) + "]";
+			int port = 1024 + random.nextInt(60000);
+			return new Components("http", host, port, "/api/v1/" + word(random) + "/" + n, "format=json", null);
+		}
+	};
+
+	static final int SIZE = 1024;
+
+	private static final String[] WORDS = {
+			"alpha", "beta", "gamma", "delta", "news", "sports", "catalog", "search", "images", "docs",
+			"product", "user", "account", "static", "assets", "blog", "archive", "library", "media", "shop"
+	};
+
+	private static final String[] IDN_HOSTS = {
+			"bücher*.de", "münchen*.example", "пример*.рф", "例え*.jp", "παράδειγμα*.gr", "xn--mnchen-3ya*.de"
+	};
+
+	private static final String[] IDN_WORDS = {
+			"straße", "über", "café", "naïve", "ärger", "日本語", "данные", "año"
+	};
+
+	private static final String[] QUERY_NAMES = {
+			"q", "page", "size", "sort", "utm_source", "utm_medium", "utm_campaign", "filter", "lang", "ref"
+	};
+
+	private List<Components> components;
+
+	abstract Components next(Random random, int n);
+
+	synchronized List<Components> components() {
+		// generated on first use, the word lists are not initialized when the constants are created
+		if (components == null) {
+			Random random = new Random(0x5eed + ordinal());
+			List<Components> list = new ArrayList<>(SIZE);
+			for (int i = 0; i < SIZE; i++) {
+				list.add(next(random, i));
+			}
+			components = list;
+		}
+		return components;
+	}
+
+	private static String word(Random random) {
+		return WORDS[random.nextInt(WORDS.length)];
+	}
+
+	/**
+	 * The components of a URL. Path and query are not encoded.
+	 */
+	record Components(String scheme, String host, int port, String path, String query, String fragment) {
+
+		String encodedPath() {
+			return URLEncoder.encode(path, StandardCharsets.UTF_8).replace("%2F", "/").replace("+", "%20");
+		}
+
+		String encodedQuery() {
+			if (query == null) {
+				return null;
+			}
+			StringBuilder sb = new StringBuilder();
+			for (String pair : query.split("&")) {
+				if (!sb.isEmpty()) {
+					sb.append('&');
+				}
+				int i = pair.indexOf('=');
+				sb.append(URLEncoder.encode(pair.substring(0, i), StandardCharsets.UTF_8)).append('=')
+						.append(URLEncoder.encode(pair.substring(i + 1), StandardCharsets.UTF_8).replace("+", "%20"));
+			}
+			return sb.toString();
+		}
+
+		/**
+		 * The URL string, encoded as it would appear in a document. Host names are not converted to ASCII.
+		 */
+		String toURLString() {
+			StringBuilder sb = new StringBuilder(scheme).append("://").append(host);
+			if (port != -1) {
+				sb.append(':').append(port);
+			}
+			sb.append(encodedPath());
+			if (query != null) {
+				sb.append('?').append(encodedQuery());
+			}
+			if (fragment != null) {
+				sb.append('#').append(fragment);
+			}
+			return sb.toString();
+		}
+	}
+}
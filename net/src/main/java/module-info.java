@@ -1,9 +1,11 @@
 import org.xbib.net.buffer.DataBufferFactory;
 import org.xbib.net.buffer.DefaultDataBufferFactory;
+import org.xbib.net.resolver.HostResolver;
 
 module org.xbib.net {
     exports org.xbib.net;
     exports org.xbib.net.buffer;
+    exports org.xbib.net.resolver;
     exports org.xbib.net.scheme;
     exports org.xbib.net.template;
     exports org.xbib.net.template.expression;
@@ -17,5 +19,6 @@ module org.xbib.net {
     requires java.management;
     requires transitive java.logging;
     uses DataBufferFactory;
+    uses HostResolver;
     provides DataBufferFactory with DefaultDataBufferFactory;
 }
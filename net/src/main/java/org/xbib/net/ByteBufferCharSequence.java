@@ -0,0 +1,76 @@
+package org.xbib.net;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A character sequence view of the bytes of a byte buffer, one char per byte, as in ISO-8859-1.
+ * The bytes are not copied, strings are only created for requested ranges.
+ * The position and limit of the byte buffer are not changed.
+ */
+final class ByteBufferCharSequence implements CharSequence {
+
+    private final ByteBuffer byteBuffer;
+
+    private final int offset;
+
+    private final int length;
+
+    ByteBufferCharSequence(ByteBuffer byteBuffer) {
+        this(byteBuffer, byteBuffer.position(), byteBuffer.remaining());
+    }
+
+    private ByteBufferCharSequence(ByteBuffer byteBuffer, int offset, int length) {
+        this.byteBuffer = byteBuffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return (char) (byteBuffer.get(offset + index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        checkRange(start, end);
+        return new ByteBufferCharSequence(byteBuffer, offset + start, end - start);
+    }
+
+    /**
+     * Create a string from a range of this sequence.
+     *
+     * @param start the start, inclusive
+     * @param end the end, exclusive
+     * @return the string
+     */
+    String toString(int start, int end) {
+        checkRange(start, end);
+        if (byteBuffer.hasArray()) {
+            return new String(byteBuffer.array(), byteBuffer.arrayOffset() + offset + start, end - start,
+                    StandardCharsets.ISO_8859_1);
+        }
+        byte[] bytes = new byte[end - start];
+        byteBuffer.get(offset + start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        return toString(0, length);
+    }
+
+    private void checkRange(int start, int end) {
+        if (start < 0 || start > end || end > length) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+    }
+}
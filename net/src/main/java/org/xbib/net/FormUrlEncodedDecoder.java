@@ -0,0 +1,274 @@
+package org.xbib.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.xbib.net.buffer.DataBuffer;
+import org.xbib.net.util.CharScanner;
+
+/**
+ * An incremental decoder for {@code application/x-www-form-urlencoded} bodies.
+ *
+ * The body can be fed in chunks of any size. Each name/value pair is added to a {@link ParameterBuilder}
+ * as soon as it is complete. Plus signs and percent-encoded bytes are decoded in the same pass, the decoded
+ * bytes are converted to strings with the charset, malformed input is replaced. Runs of bytes without delimiters
+ * are found with {@link CharScanner} and copied at once. Only the bytes of the current name or value are kept,
+ * up to a maximum token length. The limits of the parameter builder are enforced while decoding.
+ *
+ * <pre>
+ * FormUrlEncodedDecoder decoder = new FormUrlEncodedDecoder(builder);
+ * decoder.decode(chunk1);
+ * decoder.decode(chunk2);
+ * decoder.end();
+ * </pre>
+ *
+ * This class is not thread-safe.
+ */
+public class FormUrlEncodedDecoder {
+
+    private static final int DEFAULT_MAX_TOKEN_LENGTH = 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ParameterBuilder builder;
+
+    private final Charset charset;
+
+    private final int maxTokenLength;
+
+    private byte[] token;
+
+    private int length;
+
+    private String name;
+
+    private boolean inValue;
+
+    /**
+     * The state of a percent-encoded byte, 0 if there is none, 1 after the percent sign, 2 after the first hex digit.
+     */
+    private int percentState;
+
+    private int firstDigit;
+
+    public FormUrlEncodedDecoder(ParameterBuilder builder) {
+        this(builder, StandardCharsets.UTF_8);
+    }
+
+    public FormUrlEncodedDecoder(ParameterBuilder builder, Charset charset) {
+        this(builder, charset, DEFAULT_MAX_TOKEN_LENGTH);
+    }
+
+    /**
+     * @param builder        the parameter builder
+     * @param charset        the charset of the decoded bytes
+     * @param maxTokenLength the maximum number of decoded bytes of a name or a value
+     */
+    public FormUrlEncodedDecoder(ParameterBuilder builder, Charset charset, int maxTokenLength) {
+        this.builder = builder;
+        this.charset = charset;
+        this.maxTokenLength = maxTokenLength;
+        this.token = new byte[Math.max(1, Math.min(64, maxTokenLength))];
+    }
+
+    /**
+     * Decode the remaining bytes of a byte buffer. The position of the buffer is moved to the limit.
+     *
+     * @param byteBuffer the byte buffer
+     * @return this decoder
+     * @throws IllegalArgumentException if a limit is exceeded
+     */
+    public FormUrlEncodedDecoder decode(ByteBuffer byteBuffer) {
+        builder.countBytes(byteBuffer.remaining());
+        if (byteBuffer.hasArray()) {
+            byte[] array = byteBuffer.array();
+            int offset = byteBuffer.arrayOffset();
+            int i = offset + byteBuffer.position();
+            int end = offset + byteBuffer.limit();
+            while (i < end) {
+                if (percentState == 0) {
+                    // copy the run of bytes up to the next delimiter at once
+                    int j = CharScanner.indexOfAny(array, i, end, (byte) '&', (byte) '=', (byte) '+', (byte) '%');
+                    if (j > i) {
+                        put(array, i, j - i);
+                        i = j;
+                        continue;
+                    }
+                }
+                decode(array[i++]);
+            }
+            byteBuffer.position(byteBuffer.limit());
+        } else {
+            while (byteBuffer.hasRemaining()) {
+                decode(byteBuffer.get());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Decode the readable bytes of a data buffer. The read position of the data buffer is moved to
+     * the write position.
+     *
+     * @param dataBuffer the data buffer
+     * @return this decoder
+     * @throws IllegalArgumentException if a limit is exceeded
+     */
+    public FormUrlEncodedDecoder decode(DataBuffer dataBuffer) {
+        int readableByteCount = dataBuffer.readableByteCount();
+        decode(dataBuffer.asByteBuffer());
+        dataBuffer.readPosition(dataBuffer.readPosition() + readableByteCount);
+        return this;
+    }
+
+    /**
+     * Decode all bytes of an input stream and end decoding. The input stream is not closed.
+     *
+     * @param inputStream the input stream
+     * @return this decoder
+     * @throws IOException if reading fails
+     * @throws IllegalArgumentException if a limit is exceeded
+     */
+    public FormUrlEncodedDecoder decode(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int n;
+        while ((n = inputStream.read(buffer)) != -1) {
+            decode(ByteBuffer.wrap(buffer, 0, n));
+        }
+        end();
+        return this;
+    }
+
+    /**
+     * Decode all bytes of a channel and end decoding. The channel is not closed.
+     *
+     * @param channel the channel
+     * @return this decoder
+     * @throws IOException if reading fails
+     * @throws IllegalArgumentException if a limit is exceeded
+     */
+    public FormUrlEncodedDecoder decode(ReadableByteChannel channel) throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        while (channel.read(byteBuffer) != -1) {
+            byteBuffer.flip();
+            decode(byteBuffer);
+            byteBuffer.clear();
+        }
+        end();
+        return this;
+    }
+
+    /**
+     * End decoding and add the last pair, if any.
+     */
+    public void end() {
+        endPair();
+    }
+
+    private void decode(byte b) {
+        switch (percentState) {
+            case 1:
+                if (b == '&') {
+                    percentState = 0;
+                    endPair();
+                } else if (b == '=' && !inValue) {
+                    percentState = 0;
+                    endName();
+                } else {
+                    firstDigit = b;
+                    percentState = 2;
+                }
+                return;
+            case 2:
+                if (b == '&' || (b == '=' && !inValue)) {
+                    // an incomplete percent-encoded byte at the end of a token, keep the digit
+                    percentState = 0;
+                    put(firstDigit);
+                    if (b == '&') {
+                        endPair();
+                    } else {
+                        endName();
+                    }
+                    return;
+                }
+                percentState = 0;
+                int d1 = Character.digit(firstDigit, 16);
+                int d2 = Character.digit(b, 16);
+                put(d1 >= 0 && d2 >= 0 ? d1 << 4 | d2 : 0xff);
+                return;
+            default:
+                break;
+        }
+        switch (b) {
+            case '&':
+                endPair();
+                break;
+            case '=':
+                if (inValue) {
+                    put(b);
+                } else {
+                    endName();
+                }
+                break;
+            case '+':
+                put(' ');
+                break;
+            case '%':
+                percentState = 1;
+                break;
+            default:
+                put(b);
+                break;
+        }
+    }
+
+    private void put(int b) {
+        if (length == token.length) {
+            if (length >= maxTokenLength) {
+                throw new IllegalArgumentException("token length limit " + maxTokenLength + " exceeded");
+            }
+            token = Arrays.copyOf(token, (int) Math.min(maxTokenLength, 2L * length));
+        }
+        token[length++] = (byte) b;
+    }
+
+    private void put(byte[] bytes, int offset, int count) {
+        if (length + count > token.length) {
+            if (length + count > maxTokenLength) {
+                throw new IllegalArgumentException("token length limit " + maxTokenLength + " exceeded");
+            }
+            token = Arrays.copyOf(token, (int) Math.min(maxTokenLength, Math.max(2L * length, length + count)));
+        }
+        System.arraycopy(bytes, offset, token, length, count);
+        length += count;
+    }
+
+    private void endName() {
+        name = new String(token, 0, length, charset);
+        length = 0;
+        inValue = true;
+    }
+
+    private void endPair() {
+        if (percentState == 2) {
+            put(firstDigit);
+        }
+        percentState = 0;
+        String value = null;
+        if (inValue) {
+            value = new String(token, 0, length, charset);
+        } else {
+            name = new String(token, 0, length, charset);
+        }
+        if (!name.isEmpty()) {
+            builder.addPair(name, value);
+        }
+        name = null;
+        length = 0;
+        inValue = false;
+    }
+}
@@ -6,8 +6,6 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.xbib.net.scheme.Scheme;
 import org.xbib.net.scheme.SchemeRegistry;
@@ -17,9 +15,6 @@ import org.xbib.net.util.Profile;
 
 public class IRI implements Comparable<IRI> {
 
-    private static final Pattern IRIPATTERN =
-            Pattern.compile("^(?:([^:/?#]+):)?(?://([^/?#]*))?([^?#]*)(?:\\?([^#]*))?(?:#(.*))?");
-
     private final IRIBuilder builder;
 
     IRI(IRIBuilder builder) {
@@ -533,8 +528,8 @@ public class IRI implements Comparable<IRI> {
         }
 
         public IRIBuilder from(String string) {
+            // the scheme specific part is taken from the input, it is not built again from the components
             parse(CharUtils.stripBidi(string));
-            authorityAndSchemeSpecificPart();
             return this;
         }
 
@@ -633,28 +628,43 @@ public class IRI implements Comparable<IRI> {
             return new IRI(this);
         }
 
+        /**
+         * Split an IRI into its components in a single pass, as the regular expression of RFC 3986 appendix B
+         * does, and verify the characters of each component against its RFC 3987 profile while scanning.
+         */
         private void parse(String iri) {
             try {
-                Matcher irim = IRIPATTERN.matcher(iri);
-                if (irim.find()) {
-                    scheme = irim.group(1);
-                    schemeClass = reg.getScheme(scheme);
-                    authority = irim.group(2);
-                    path = irim.group(3);
-                    query = irim.group(4);
-                    fragment = irim.group(5);
+                int length = iri.length();
+                int i = 0;
+                int colon = indexOfSchemeDelimiter(iri);
+                if (colon > 0) {
+                    CharUtils.verify(iri, 0, colon, Profile.SCHEME);
+                    scheme = iri.substring(0, colon);
+                    i = colon + 1;
+                }
+                schemeClass = reg.getScheme(scheme);
+                schemeSpecificPart = i == 0 ? iri : iri.substring(i);
+                if (iri.startsWith("//", i)) {
+                    int start = i + 2;
+                    i = scan(iri, start, length, null, '/', '?', '#');
+                    authority = iri.substring(start, i);
                     parseAuthority();
-                    try {
-                        CharUtils.verify(scheme, Profile.SCHEME);
-                        CharUtils.verify(path, Profile.IPATH);
-                        CharUtils.verify(query, Profile.IQUERY);
-                        CharUtils.verify(fragment, Profile.IFRAGMENT);
-                    } catch (InvalidCharacterException e) {
-                        throw new IRISyntaxException(e);
-                    }
-                } else {
-                    throw new IRISyntaxException("invalid Syntax");
                 }
+                int start = i;
+                i = scan(iri, start, length, Profile.IPATH, '?', '#', '#');
+                path = iri.substring(start, i);
+                if (i < length && iri.charAt(i) == '?') {
+                    start = i + 1;
+                    i = scan(iri, start, length, Profile.IQUERY, '#', '#', '#');
+                    query = iri.substring(start, i);
+                }
+                if (i < length) {
+                    start = i + 1;
+                    CharUtils.verify(iri, start, length, Profile.IFRAGMENT);
+                    fragment = iri.substring(start);
+                }
+            } catch (InvalidCharacterException e) {
+                throw new IRISyntaxException(e);
             } catch (IRISyntaxException e) {
                 throw e;
             } catch (Exception e) {
@@ -662,15 +672,73 @@ public class IRI implements Comparable<IRI> {
             }
         }
 
+        /**
+         * Return the position of the colon after the scheme, or -1 if the IRI has no scheme.
+         */
+        private static int indexOfSchemeDelimiter(String iri) {
+            for (int i = 0; i < iri.length(); i++) {
+                char c = iri.charAt(i);
+                if (c == ':') {
+                    return i;
+                }
+                if (c == '/' || c == '?' || c == '#') {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Scan to the next delimiter and verify the characters on the way, if a profile is given.
+         */
+        private static int scan(String iri, int start, int length, Profile profile, char d1, char d2, char d3) {
+            int i = start;
+            while (i < length) {
+                char c = iri.charAt(i);
+                if (c == d1 || c == d2 || c == d3) {
+                    break;
+                }
+                i++;
+                if (profile != null) {
+                    int cp = c;
+                    if (Character.isHighSurrogate(c) && i < length && Character.isLowSurrogate(iri.charAt(i))) {
+                        cp = Character.toCodePoint(c, iri.charAt(i++));
+                    }
+                    if (profile.check(cp)) {
+                        throw new InvalidCharacterException(cp);
+                    }
+                }
+            }
+            return i;
+        }
+
         private void parseAuthority() {
             if (authority != null) {
                 // [ <userinfo> '@' ] <host> [ ':' <port> ]
                 int pos = authority.lastIndexOf('@');
                 userinfo = pos >= 0 ? authority.substring(0, pos) : null;
-                String s = pos >= 0 ? authority.substring(pos + 1) : authority;
-                pos = s.indexOf(':');
-                host = pos >= 0 ? s.substring(0, pos) : s;
-                port = pos >= 0 ? Integer.parseInt(s.substring(pos + 1)) : -1;
+                int hostStart = pos + 1;
+                int hostEnd = authority.length();
+                if (authority.startsWith("[", hostStart)) {
+                    // the colons of an IP literal do not start the port
+                    int bracket = authority.indexOf(']', hostStart);
+                    if (bracket < 0) {
+                        throw new IRISyntaxException("unterminated IP literal: " + authority);
+                    }
+                    verifyIPLiteral(authority, hostStart + 1, bracket);
+                    hostEnd = bracket + 1;
+                    if (hostEnd < authority.length() && authority.charAt(hostEnd) != ':') {
+                        throw new IRISyntaxException("invalid character after IP literal: " + authority);
+                    }
+                    pos = hostEnd < authority.length() ? hostEnd : -1;
+                } else {
+                    pos = authority.indexOf(':', hostStart);
+                    if (pos >= 0) {
+                        hostEnd = pos;
+                    }
+                }
+                host = authority.substring(hostStart, hostEnd);
+                port = pos >= 0 ? Integer.parseInt(authority, pos + 1, authority.length(), 10) : -1;
                 try {
                     CharUtils.verify(userinfo, Profile.IUSERINFO);
                     CharUtils.verify(host, Profile.IHOST);
@@ -680,6 +748,32 @@ public class IRI implements Comparable<IRI> {
             }
         }
 
+        /**
+         * Verify an IP literal without its brackets, an IPv6 address or an IPvFuture address of RFC 3986.
+         */
+        private static void verifyIPLiteral(String s, int start, int end) {
+            boolean valid = start < end;
+            if (valid && (s.charAt(start) == 'v' || s.charAt(start) == 'V')) {
+                int dot = s.indexOf('.', start);
+                valid = dot > start + 1 && dot < end - 1;
+                for (int i = start + 1; valid && i < dot; i++) {
+                    valid = CharUtils.isHex(s.charAt(i));
+                }
+                for (int i = dot + 1; valid && i < end; i++) {
+                    char c = s.charAt(i);
+                    valid = CharUtils.isUnreserved(c) || CharUtils.isSubDelim(c) || c == ':';
+                }
+            } else {
+                for (int i = start; valid && i < end; i++) {
+                    char c = s.charAt(i);
+                    valid = CharUtils.isHex(c) || c == ':' || c == '.';
+                }
+            }
+            if (!valid) {
+                throw new IRISyntaxException("invalid IP literal: " + s.substring(start - 1, end + 1));
+            }
+        }
+
         private void authorityAndSchemeSpecificPart() {
             if (authority == null && (userinfo != null || host != null)) {
                 StringBuilder buf = new StringBuilder();
@@ -2,14 +2,14 @@ package org.xbib.net;
 
 import java.nio.charset.MalformedInputException;
 import java.nio.charset.UnmappableCharacterException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
 import org.xbib.datastructures.common.ImmutableList;
 import org.xbib.datastructures.common.LinkedHashSetMultiMap;
 import org.xbib.datastructures.common.MultiMap;
@@ -28,12 +28,16 @@ public class Parameter implements Iterable<Pair<String, Object>>, Comparable<Par
 
     private static final Parameter EMPTY = Parameter.builder().build();
 
+    private static final int INDEX_THRESHOLD = 8;
+
     private final ParameterBuilder builder;
 
     private final ImmutableList<Pair<String, Object>> list;
 
     private final String queryString;
 
+    private Index index;
+
     Parameter(ParameterBuilder builder,
               ImmutableList<Pair<String, Object>> list,
               String queryString) {
@@ -180,38 +184,35 @@ public class Parameter implements Iterable<Pair<String, Object>>, Comparable<Par
     }
 
     public List<Object> getAllInDomain(Domain domain) {
-        Parameter parameter = null;
-        if (builder.parameterMap.containsKey(domain)) {
-            parameter = builder.parameterMap.get(domain);
-        }
+        Parameter parameter = builder.parameterMap.get(domain);
         if (parameter != null) {
             return parameter.getAllInDomain(domain);
         }
         if (getDomain().equals(domain)) {
-            return list.stream()
-                    .map(Pair::getValue)
-                    .collect(Collectors.toList());
+            List<Object> values = new ArrayList<>(list.size());
+            for (Pair<String, Object> pair : list) {
+                values.add(pair.getValue());
+            }
+            return values;
         }
         return null;
     }
 
     public boolean isPresent(Domain domain) {
-        Parameter parameter = null;
-        if (builder.parameterMap.containsKey(domain)) {
-            parameter = builder.parameterMap.get(domain);
-        }
+        Parameter parameter = builder.parameterMap.get(domain);
         if (parameter != null) {
             return parameter.isPresent(domain);
         }
         if (getDomain().equals(domain)) {
-            return list.stream().findAny().isPresent();
+            return !list.isEmpty();
         }
         return false;
     }
 
     public Parameter get(Domain domain) throws ParameterException {
-        if (builder.parameterMap.containsKey(domain)) {
-            return builder.parameterMap.get(domain);
+        Parameter parameter = builder.parameterMap.get(domain);
+        if (parameter != null) {
+            return parameter;
         }
         if (getDomain() == Domain.UNDEFINED) {
             throw new ParameterException("undefined domain");
@@ -223,10 +224,7 @@ public class Parameter implements Iterable<Pair<String, Object>>, Comparable<Par
     }
 
     public List<Object> getAll(String key, Domain domain) throws Exception {
-        Parameter parameter = null;
-        if (builder.parameterMap.containsKey(domain)) {
-            parameter = builder.parameterMap.get(domain);
-        }
+        Parameter parameter = builder.parameterMap.get(domain);
         if (parameter != null) {
             return parameter.getAll(key, domain);
         }
@@ -234,34 +232,37 @@ public class Parameter implements Iterable<Pair<String, Object>>, Comparable<Par
             throw new ParameterException("undefined domain");
         }
         if (getDomain().equals(domain)) {
-            return list.stream()
-                    .filter(p -> p.getKey().equals(key))
-                    .map(Pair::getValue)
-                    .collect(Collectors.toList());
+            List<Object> values = new ArrayList<>();
+            Index index = index();
+            if (index != null) {
+                for (int i = index.first(key); i >= 0; i = index.next[i]) {
+                    values.add(index.values[i]);
+                }
+            } else {
+                for (Pair<String, Object> pair : list) {
+                    if (key.equals(pair.getKey())) {
+                        values.add(pair.getValue());
+                    }
+                }
+            }
+            return values;
         }
         return null;
     }
 
     public boolean containsKey(String key, Domain domain) {
-        Parameter parameter = null;
-        if (builder.parameterMap.containsKey(domain)) {
-            parameter = builder.parameterMap.get(domain);
-        }
+        Parameter parameter = builder.parameterMap.get(domain);
         if (parameter != null) {
             return parameter.containsKey(key, domain);
         }
         if (getDomain().equals(domain)) {
-            return list.stream()
-                    .anyMatch(p -> key.equals(p.getKey()));
+            return indexOf(key) >= 0;
         }
         return false;
     }
 
     public Object get(String key, Domain domain) throws ParameterException {
-        Parameter parameter = null;
-        if (builder.parameterMap.containsKey(domain)) {
-            parameter = builder.parameterMap.get(domain);
-        }
+        Parameter parameter = builder.parameterMap.get(domain);
         if (parameter != null) {
             return parameter.get(key, domain);
         }
@@ -269,12 +270,9 @@ public class Parameter implements Iterable<Pair<String, Object>>, Comparable<Par
             throw new ParameterException("undefined domain, please specify domain for parameter " + this);
         }
         if (getDomain().equals(domain)) {
-            Optional<Object> optional = list.stream()
-                    .filter(p -> key.equals(p.getKey()))
-                    .map(Pair::getValue)
-                    .findFirst();
-            if (optional.isPresent()) {
-                return optional.get();
+            int i = indexOf(key);
+            if (i >= 0) {
+                return list.get(i).getValue();
             }
         }
         return null;
@@ -291,6 +289,38 @@ public class Parameter implements Iterable<Pair<String, Object>>, Comparable<Par
         return sb.toString();
     }
 
+    /**
+     * Find the position of the first pair with the given key.
+     */
+    private int indexOf(String key) {
+        Index index = index();
+        if (index != null) {
+            return index.first(key);
+        }
+        for (int i = 0; i < list.size(); i++) {
+            if (key.equals(list.get(i).getKey())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return the index of the keys, or null if the list is small enough for a linear scan.
+     */
+    private Index index() {
+        if (list.size() <= INDEX_THRESHOLD) {
+            return null;
+        }
+        Index i = index;
+        if (i == null) {
+            // racy but safe, the index is immutable
+            i = new Index(list);
+            index = i;
+        }
+        return i;
+    }
+
     @SuppressWarnings("unchecked")
     private static Object createValue(Object object) {
         if (object instanceof Collection) {
@@ -303,4 +333,84 @@ public class Parameter implements Iterable<Pair<String, Object>>, Comparable<Par
         }
         return object;
     }
+
+    /**
+     * An immutable open-addressing hash index from keys to the positions of their pairs. The table
+     * holds the first position of each key, the positions of further pairs with the same key are chained.
+     * The keys come from requests, so they are hashed with a random seed per index, and keys with colliding
+     * string hash codes can not be prepared to degrade the linear probing.
+     */
+    private static final class Index {
+
+        private final long seed;
+
+        private final String[] keys;
+
+        private final Object[] values;
+
+        private final int[] table;
+
+        private final int[] next;
+
+        private final int mask;
+
+        Index(List<Pair<String, Object>> list) {
+            int size = list.size();
+            this.seed = ThreadLocalRandom.current().nextLong();
+            this.keys = new String[size];
+            this.values = new Object[size];
+            this.next = new int[size];
+            int capacity = Integer.highestOneBit(size * 2 - 1) << 1;
+            this.table = new int[capacity];
+            this.mask = capacity - 1;
+            int[] last = new int[capacity];
+            for (int i = 0; i < size; i++) {
+                Pair<String, Object> pair = list.get(i);
+                String key = pair.getKey();
+                keys[i] = key;
+                values[i] = pair.getValue();
+                next[i] = -1;
+                if (key == null) {
+                    continue;
+                }
+                int slot = hash(key) & mask;
+                while (true) {
+                    int pos = table[slot] - 1;
+                    if (pos < 0) {
+                        table[slot] = i + 1;
+                        last[slot] = i;
+                        break;
+                    }
+                    if (key.equals(keys[pos])) {
+                        next[last[slot]] = i;
+                        last[slot] = i;
+                        break;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+            }
+        }
+
+        /**
+         * Return the first position of a key, or -1.
+         */
+        int first(String key) {
+            int slot = hash(key) & mask;
+            while (true) {
+                int pos = table[slot] - 1;
+                if (pos < 0) {
+                    return -1;
+                }
+                if (key.equals(keys[pos])) {
+                    return pos;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private int hash(String key) {
+            long h = ParameterBuilder.hash(seed, key);
+            return (int) (h ^ (h >>> 32));
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package org.xbib.net;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.lang.reflect.Array;
 import java.nio.charset.Charset;
@@ -10,11 +12,14 @@ import java.nio.charset.UnmappableCharacterException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.xbib.datastructures.common.ImmutableList;
 import org.xbib.datastructures.common.MultiMap;
@@ -34,6 +39,10 @@ public class ParameterBuilder implements PairValidator {
 
     private final List<Pair<String, Object>> list;
 
+    private Set<PairKey> pairKeys;
+
+    private long hashSeed;
+
     protected Parameter.Domain domain;
 
     final Map<Parameter.Domain, Parameter> parameterMap;
@@ -46,6 +55,12 @@ public class ParameterBuilder implements PairValidator {
 
     private int limit;
 
+    private long byteLimit;
+
+    private int keyLengthLimit;
+
+    private long byteCount;
+
     private PairValidator pairValidator;
 
     private ParameterValidator parameterValidator;
@@ -73,9 +88,15 @@ public class ParameterBuilder implements PairValidator {
 
     ParameterBuilder(ParameterBuilder builder) {
         this.list = builder.list;
+        // the copy shares the list, so it shares the keys of the pairs in the list
+        this.pairKeys = builder.pairKeys();
+        this.hashSeed = builder.hashSeed;
         this.parameterMap = builder.parameterMap;
         this.domain = builder.domain;
         this.limit = builder.limit;
+        this.byteLimit = builder.byteLimit;
+        this.keyLengthLimit = builder.keyLengthLimit;
+        this.byteCount = builder.byteCount;
         this.charset = builder.charset;
         this.percentDecoder = builder.percentDecoder;
         this.percentEncoder = builder.percentEncoder;
@@ -145,6 +166,30 @@ public class ParameterBuilder implements PairValidator {
         return this;
     }
 
+    /**
+     * Limit the total size of the parameters. For percent-encoded input, the size is the number of bytes
+     * of the input, otherwise the number of characters of the names and values. The limit is checked
+     * for each parameter, before it is decoded.
+     *
+     * @param byteLimit the limit, or 0 for no limit
+     * @return this builder
+     */
+    public ParameterBuilder byteLimit(long byteLimit) {
+        this.byteLimit = byteLimit;
+        return this;
+    }
+
+    /**
+     * Limit the length of parameter names.
+     *
+     * @param keyLengthLimit the limit, or 0 for no limit
+     * @return this builder
+     */
+    public ParameterBuilder keyLengthLimit(int keyLengthLimit) {
+        this.keyLengthLimit = keyLengthLimit;
+        return this;
+    }
+
     public ParameterBuilder pairValidator(PairValidator validator) {
         this.pairValidator = validator;
         return this;
@@ -202,39 +247,55 @@ public class ParameterBuilder implements PairValidator {
         if (percentDecoder == null) {
             charset(StandardCharsets.UTF_8);
         }
-        // watch out for "plus" encoding, replace it with a space character
-        String s = body.replace('+', ' ');
-        while (s != null) {
-            Pair<String, Object> pairs = indexOf(AMPERSAND_CHAR, s);
-            Pair<String, Object> pair = indexOf(EQUAL_CHAR, pairs.getKey());
-            if (pair.getKey() != null && !pair.getKey().isEmpty()) {
+        int length = body.length();
+        int pos = 0;
+        while (pos <= length) {
+            int end = body.indexOf(AMPERSAND_CHAR, pos);
+            if (end < 0) {
+                end = length;
+            }
+            countBytes(end - pos + 1);
+            int keyEnd = pos;
+            while (keyEnd < end && body.charAt(keyEnd) != EQUAL_CHAR) {
+                keyEnd++;
+            }
+            if (keyEnd > pos) {
+                // watch out for "plus" encoding, decode it as a space character
                 try {
-                    add(percentDecoder.decode(pair.getKey()),
-                            pair.getValue() instanceof CharSequence ? percentDecoder.decode((CharSequence) pair.getValue()) : pair.getValue());
+                    addPair(percentDecoder.decode(body, pos, keyEnd, true),
+                            keyEnd < end ? percentDecoder.decode(body, keyEnd + 1, end, true) : null);
                 } catch (MalformedInputException | UnmappableCharacterException e) {
                     throw new UncheckedIOException(e);
                 }
             }
-            s = pairs.getValue() !=null ? pairs.getValue().toString() : null;
+            pos = end + 1;
         }
         return this;
     }
 
+    /**
+     * Add the pairs of a percent-encoded body that is read from an input stream, without reading
+     * the whole body into memory.
+     *
+     * @param inputStream the input stream, it is not closed
+     * @return this builder
+     * @throws IOException if reading fails
+     * @see FormUrlEncodedDecoder
+     */
+    public ParameterBuilder addPercentEncodedBody(InputStream inputStream) throws IOException {
+        new FormUrlEncodedDecoder(this, charset != null ? charset : StandardCharsets.UTF_8).decode(inputStream);
+        return this;
+    }
+
     public ParameterBuilder add(Pair<String, Object> pair) {
         add(pair.getKey(), pair.getValue());
         return this;
     }
 
     public ParameterBuilder add(String name, Object value) {
-        if (limit > 0 && list.size() >= limit) {
-            throw new IllegalArgumentException("parameter limit " + limit + " exceeded");
-        }
-        Pair<String, Object> pair = apply(Pair.of(name, value));
-        if (pair != null) {
-            if (enableDuplicates || !list.contains(pair)) {
-                list.add(pair);
-            }
-        }
+        countBytes((name != null ? name.length() : 0) +
+                (value instanceof CharSequence ? ((CharSequence) value).length() : 0));
+        addPair(name, value);
         return this;
     }
 
@@ -325,6 +386,71 @@ public class ParameterBuilder implements PairValidator {
         return list.iterator();
     }
 
+    void addPair(String name, Object value) {
+        if (limit > 0 && list.size() >= limit) {
+            throw new IllegalArgumentException("parameter limit " + limit + " exceeded");
+        }
+        if (keyLengthLimit > 0 && name != null && name.length() > keyLengthLimit) {
+            throw new IllegalArgumentException("parameter key length limit " + keyLengthLimit + " exceeded");
+        }
+        Pair<String, Object> pair = apply(Pair.of(name, value));
+        if (pair != null) {
+            if (enableDuplicates) {
+                list.add(pair);
+            } else if (pairKeys().add(new PairKey(pair, hash(pair)))) {
+                list.add(pair);
+            }
+        }
+    }
+
+    void countBytes(int n) {
+        byteCount += n;
+        if (byteLimit > 0 && byteCount > byteLimit) {
+            throw new IllegalArgumentException("parameter byte limit " + byteLimit + " exceeded");
+        }
+    }
+
+    /**
+     * The keys of the pairs, created with the hash seed when the first pair is checked for a duplicate.
+     */
+    private Set<PairKey> pairKeys() {
+        if (pairKeys == null) {
+            pairKeys = new HashSet<>();
+            hashSeed = ThreadLocalRandom.current().nextLong();
+        }
+        return pairKeys;
+    }
+
+    /**
+     * A hash of name and value with a random seed per builder, so that colliding parameter names
+     * can not be prepared in advance.
+     */
+    private int hash(Pair<String, Object> pair) {
+        long h = hash(hashSeed, pair.getKey());
+        Object value = pair.getValue();
+        h = value instanceof CharSequence ? hash(h, (CharSequence) value) : mix(h ^ Objects.hashCode(value));
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * A seeded hash of a character sequence, see {@link Parameter} for its index of keys.
+     */
+    static long hash(long seed, CharSequence charSequence) {
+        long h = seed;
+        if (charSequence != null) {
+            for (int i = 0; i < charSequence.length(); i++) {
+                h = mix(h ^ charSequence.charAt(i));
+            }
+            h = mix(h ^ charSequence.length());
+        }
+        return h;
+    }
+
+    private static long mix(long h) {
+        h *= 0x9e3779b97f4a7c15L;
+        return h ^ (h >>> 29);
+    }
+
     private String encodeQueryString()
             throws MalformedInputException, UnmappableCharacterException {
         Iterator<Pair<String, Object>> it = list.iterator();
@@ -350,6 +476,7 @@ public class ParameterBuilder implements PairValidator {
         }
         String name = null;
         int count = 0;
+        int start = 0;
         int pos = 0;
         int i;
         char c;
@@ -357,8 +484,9 @@ public class ParameterBuilder implements PairValidator {
             c = query.charAt(i);
             if (c == '=' && name == null) {
                 if (pos != i) {
-                    name = query.substring(pos, i).replaceAll("\\+", "%20");
-                    name = percentDecoder.decode(name);
+                    countBytes(i + 1 - start);
+                    start = i + 1;
+                    name = percentDecoder.decode(query, pos, i, true);
                 }
                 pos = i + 1;
             } else if (c == '&' || c == ';') {
@@ -366,35 +494,56 @@ public class ParameterBuilder implements PairValidator {
                     if (++count > MAX_PARAMS_IN_QUERY_STRING) {
                         return;
                     }
-                    String s = query.substring(pos, i).replaceAll("\\+", "%20");
-                    add(percentDecoder.decode(s), "");
+                    countBytes(i + 1 - start);
+                    addPair(percentDecoder.decode(query, pos, i, true), "");
                 } else if (name != null) {
                     if (++count > MAX_PARAMS_IN_QUERY_STRING) {
                         return;
                     }
-                    String value = query.substring(pos, i).replaceAll("\\+", "%20");
-                    add(name, percentDecoder.decode(value));
+                    countBytes(i + 1 - start);
+                    addPair(name, percentDecoder.decode(query, pos, i, true));
                     name = null;
+                } else {
+                    countBytes(i + 1 - start);
                 }
+                start = i + 1;
                 pos = i + 1;
             }
         }
+        countBytes(i - start);
         if (pos != i) {
             if (name == null) {
-                add(percentDecoder.decode(query.substring(pos, i)), "");
+                addPair(percentDecoder.decode(query, pos, i, true), "");
             } else {
-                String value = query.substring(pos, i).replaceAll("\\+", "%20");
-                add(name, percentDecoder.decode(value));
+                addPair(name, percentDecoder.decode(query, pos, i, true));
             }
         } else if (name != null) {
-            add(name, "");
+            addPair(name, "");
         }
     }
 
-    private static Pair<String, Object> indexOf(char ch, String input) {
-        int i = input.indexOf(ch);
-        String k = i >= 0 ? input.substring(0, i) : input;
-        Object v = i >= 0 ? input.substring(i + 1) : null;
-        return Pair.of(k, v);
+    /**
+     * A pair with a precomputed hash, for detecting duplicate pairs.
+     */
+    private static final class PairKey {
+
+        private final Pair<String, Object> pair;
+
+        private final int hash;
+
+        PairKey(Pair<String, Object> pair, int hash) {
+            this.pair = pair;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PairKey && hash == ((PairKey) o).hash && pair.equals(((PairKey) o).pair);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
     }
 }
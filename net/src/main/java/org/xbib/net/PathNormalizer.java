@@ -1,60 +1,119 @@
 package org.xbib.net;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.StringTokenizer;
-
 /**
  *  Path normalizer.
+ *
+ *  Collapses multiple slashes, removes "." segments, and resolves ".." segments against their
+ *  predecessor in a single pass over a char array. A ".." segment that has no predecessor is dropped.
+ *  A trailing slash is preserved, and added if the path ends with a resolved ".." segment.
  */
 public class PathNormalizer {
 
     private static final char SEPARATOR_CHAR = '/';
 
+    private static final char DOT_CHAR = '.';
+
     private static final String SEPARATOR_STRING = "/";
 
     private PathNormalizer() {
     }
 
-    public static String normalize(String p) {
-        String path = p;
-        if (path == null || "".equals(path) || SEPARATOR_STRING.equals(path)) {
+    /**
+     * Normalize a path.
+     *
+     * @param path the path
+     * @return the normalized path, or the path itself if it is already normalized
+     */
+    public static String normalize(String path) {
+        if (path == null || path.isEmpty() || SEPARATOR_STRING.equals(path)) {
             return SEPARATOR_STRING;
         }
-        path = path.replaceAll("/+", SEPARATOR_STRING);
-        int leadingSlashes = 0;
-        while (leadingSlashes < path.length() && path.charAt(leadingSlashes) == SEPARATOR_CHAR) {
-            ++leadingSlashes;
+        if (isNormalized(path)) {
+            return path;
         }
-        boolean isDir = (path.charAt(path.length() - 1) == SEPARATOR_CHAR);
-        StringTokenizer st = new StringTokenizer(path, SEPARATOR_STRING);
-        LinkedList<String> list = new LinkedList<>();
-        while (st.hasMoreTokens()) {
-            String token = st.nextToken();
-            if ("..".equals(token)) {
-                if (!list.isEmpty() && !"..".equals(list.getLast())) {
-                    list.removeLast();
-                    if (!st.hasMoreTokens()) {
+        int length = path.length();
+        char[] chars = path.toCharArray();
+        int base = chars[0] == SEPARATOR_CHAR ? 1 : 0;
+        boolean isDir = chars[length - 1] == SEPARATOR_CHAR;
+        int w = base;
+        int segments = 0;
+        int i = 0;
+        while (i < length) {
+            while (i < length && chars[i] == SEPARATOR_CHAR) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            int start = i;
+            while (i < length && chars[i] != SEPARATOR_CHAR) {
+                i++;
+            }
+            int len = i - start;
+            if (len == 1 && chars[start] == DOT_CHAR) {
+                continue;
+            }
+            if (len == 2 && chars[start] == DOT_CHAR && chars[start + 1] == DOT_CHAR) {
+                if (segments > 0) {
+                    segments--;
+                    if (segments == 0) {
+                        w = base;
+                    } else {
+                        // drop the last segment together with the separator in front of it
+                        w--;
+                        while (chars[w] != SEPARATOR_CHAR) {
+                            w--;
+                        }
+                    }
+                    if (!hasMoreSegments(chars, i)) {
                         isDir = true;
                     }
                 }
-            } else if (!".".equals(token) && !"".equals(token)) {
-                list.add(token);
+                continue;
+            }
+            if (segments > 0) {
+                chars[w++] = SEPARATOR_CHAR;
             }
+            // the write position never passes the read position, so copying in place is safe
+            System.arraycopy(chars, start, chars, w, len);
+            w += len;
+            segments++;
         }
-        StringBuilder sb = new StringBuilder();
-        while (leadingSlashes-- > 0) {
-            sb.append(SEPARATOR_CHAR);
+        if (isDir && w > 0 && chars[w - 1] != SEPARATOR_CHAR) {
+            chars[w++] = SEPARATOR_CHAR;
         }
-        for (Iterator<String> it = list.iterator(); it.hasNext();) {
-            sb.append(it.next());
-            if (it.hasNext()) {
-                sb.append(SEPARATOR_CHAR);
+        return new String(chars, 0, w);
+    }
+
+    /**
+     * Check if a path has no empty, "." or ".." segments, except for a leading or trailing slash.
+     */
+    private static boolean isNormalized(String path) {
+        int length = path.length();
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == SEPARATOR_CHAR) {
+                int len = i - start;
+                if (len == 0) {
+                    if (i != 0 && i != length) {
+                        return false;
+                    }
+                } else if (path.charAt(start) == DOT_CHAR &&
+                        (len == 1 || (len == 2 && path.charAt(start + 1) == DOT_CHAR))) {
+                    return false;
+                }
+                start = i + 1;
             }
         }
-        if (isDir && sb.length() > 0 && sb.charAt(sb.length() - 1) != SEPARATOR_CHAR) {
-            sb.append(SEPARATOR_CHAR);
+        return true;
+    }
+
+    private static boolean hasMoreSegments(char[] chars, int from) {
+        for (int i = from; i < chars.length; i++) {
+            if (chars[i] != SEPARATOR_CHAR) {
+                return true;
+            }
         }
-        return sb.toString();
+        return false;
     }
 }
@@ -1,17 +1,24 @@
 package org.xbib.net;
 
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.MalformedInputException;
 import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnmappableCharacterException;
+import org.xbib.net.util.CharScanner;
 
 /**
  * Decodes percent-encoded strings.
  *
+ * Input without percent-encoded characters is returned without copying. For UTF-8, percent-encoded byte
+ * sequences are decoded inline, a {@link CharsetDecoder} is only used for other charsets.
+ *
  * This class is not thread-safe.
  */
 public class PercentDecoder {
@@ -23,6 +30,8 @@ public class PercentDecoder {
 
     private final CharsetDecoder decoder;
 
+    private final boolean utf8;
+
     /**
      * The decoded string for the current input.
      */
@@ -33,6 +42,20 @@ public class PercentDecoder {
      */
     private ByteBuffer encodedBuf;
 
+    /**
+     * The state of the UTF-8 decoder: the code point decoded so far, the number of continuation bytes
+     * still needed, the number of bytes seen, and the valid range of the next continuation byte.
+     */
+    private int codePoint;
+
+    private int needed;
+
+    private int seen;
+
+    private int lower;
+
+    private int upper;
+
     public PercentDecoder() {
         this(StandardCharsets.UTF_8.newDecoder()
                 .onUnmappableCharacter(CodingErrorAction.REPORT)
@@ -59,6 +82,7 @@ public class PercentDecoder {
         this.encodedBuf = ByteBuffer.allocate(initialEncodedByteBufSize);
         this.decodedCharBuf = CharBuffer.allocate(decodedCharBufSize);
         this.decoder = charsetDecoder;
+        this.utf8 = StandardCharsets.UTF_8.equals(charsetDecoder.charset());
     }
 
     /**
@@ -75,24 +99,303 @@ public class PercentDecoder {
         if (input == null) {
             return null;
         }
+        return decode(input, 0, input.length(), false);
+    }
+
+    /**
+     * Decode a range of a percent-encoded character sequence to a string, without creating a substring first.
+     *
+     * @param input the input
+     * @param start the start offset in the input, inclusive
+     * @param end the end offset in the input, exclusive
+     * @return the decoded string
+     * @throws MalformedInputException      if decoder is configured to report errors and malformed input is detected
+     * @throws UnmappableCharacterException if decoder is configured to report errors and an unmappable character is
+     *                                      detected
+     */
+    public String decode(CharSequence input, int start, int end)
+            throws MalformedInputException, UnmappableCharacterException {
+        return decode(input, start, end, false);
+    }
+
+    /**
+     * Decode a range of a percent-encoded character sequence to a string, optionally decoding the plus sign
+     * to a space character as in {@code application/x-www-form-urlencoded}.
+     *
+     * @param input the input
+     * @param start the start offset in the input, inclusive
+     * @param end the end offset in the input, exclusive
+     * @param plusAsSpace true if a plus sign should be decoded to a space character
+     * @return the decoded string
+     * @throws MalformedInputException      if decoder is configured to report errors and malformed input is detected
+     * @throws UnmappableCharacterException if decoder is configured to report errors and an unmappable character is
+     *                                      detected
+     */
+    public String decode(CharSequence input, int start, int end, boolean plusAsSpace)
+            throws MalformedInputException, UnmappableCharacterException {
+        int i = indexOfEncoded(input, start, end, plusAsSpace);
+        if (i < 0) {
+            return start == 0 && end == input.length() ? input.toString() : input.subSequence(start, end).toString();
+        }
         outputBuf.setLength(0);
-        outputBuf.ensureCapacity((input.length() / 8));
-        encodedBuf.clear();
-        for (int i = 0; i < input.length(); i++) {
+        outputBuf.ensureCapacity(end - start);
+        outputBuf.append(input, start, i);
+        if (utf8) {
+            decodeUtf8(input, i, end, plusAsSpace);
+        } else {
+            decodeCharset(input, i, end, plusAsSpace);
+        }
+        return outputBuf.toString();
+    }
+
+    /**
+     * Decode a percent-encoded character sequence into bytes, without decoding the bytes into characters.
+     * Characters that are not percent-encoded are written in the charset of this decoder.
+     *
+     * @param input the input
+     * @param buffer the byte buffer to write to
+     * @return the number of bytes written
+     * @throws MalformedInputException      if decoder is configured to report errors and malformed input is detected
+     * @throws UnmappableCharacterException if decoder is configured to report errors and an unmappable character is
+     *                                      detected
+     * @throws BufferOverflowException if the buffer has not enough space left
+     */
+    public int decodeToBytes(CharSequence input, ByteBuffer buffer)
+            throws MalformedInputException, UnmappableCharacterException {
+        return decodeToBytes(input, 0, input.length(), false, buffer);
+    }
+
+    /**
+     * Decode a range of a percent-encoded character sequence into bytes, without decoding the bytes into characters.
+     * Characters that are not percent-encoded are written in the charset of this decoder.
+     *
+     * @param input the input
+     * @param start the start offset in the input, inclusive
+     * @param end the end offset in the input, exclusive
+     * @param plusAsSpace true if a plus sign should be decoded to a space character
+     * @param buffer the byte buffer to write to
+     * @return the number of bytes written
+     * @throws MalformedInputException      if decoder is configured to report errors and malformed input is detected
+     * @throws UnmappableCharacterException if decoder is configured to report errors and an unmappable character is
+     *                                      detected
+     * @throws BufferOverflowException if the buffer has not enough space left
+     */
+    public int decodeToBytes(CharSequence input, int start, int end, boolean plusAsSpace, ByteBuffer buffer)
+            throws MalformedInputException, UnmappableCharacterException {
+        int position = buffer.position();
+        CharsetEncoder encoder = null;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c == '%') {
+                if (i + 2 >= end) {
+                    if (decoder.malformedInputAction() == CodingErrorAction.REPORT) {
+                        throw new MalformedInputException(i);
+                    }
+                    continue;
+                }
+                int b1 = decode(input.charAt(++i));
+                int b2 = decode(input.charAt(++i));
+                if (b1 == -1 || b2 == -1) {
+                    CodingErrorAction codingErrorAction = decoder.malformedInputAction();
+                    if (codingErrorAction == CodingErrorAction.REPORT) {
+                        throw new MalformedInputException(i);
+                    }
+                    if (codingErrorAction == CodingErrorAction.REPLACE) {
+                        buffer.put((byte) 0xff);
+                    }
+                } else {
+                    buffer.put((byte) (b1 << 4 | b2));
+                }
+            } else if (plusAsSpace && c == '+') {
+                buffer.put((byte) ' ');
+            } else if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (utf8) {
+                if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(input.charAt(i + 1))) {
+                    putUtf8(Character.toCodePoint(c, input.charAt(++i)), buffer);
+                } else if (Character.isSurrogate(c)) {
+                    CodingErrorAction codingErrorAction = decoder.malformedInputAction();
+                    if (codingErrorAction == CodingErrorAction.REPORT) {
+                        throw new MalformedInputException(1);
+                    }
+                    if (codingErrorAction == CodingErrorAction.REPLACE) {
+                        buffer.put((byte) '?');
+                    }
+                } else {
+                    putUtf8(c, buffer);
+                }
+            } else {
+                if (encoder == null) {
+                    encoder = decoder.charset().newEncoder()
+                            .onMalformedInput(decoder.malformedInputAction())
+                            .onUnmappableCharacter(decoder.unmappableCharacterAction());
+                }
+                int n = Character.isHighSurrogate(c) && i + 1 < end ? 2 : 1;
+                try {
+                    buffer.put(encoder.encode(CharBuffer.wrap(input, i, i + n)));
+                } catch (MalformedInputException | UnmappableCharacterException e) {
+                    throw e;
+                } catch (CharacterCodingException e) {
+                    throw new MalformedInputException(n);
+                }
+                i += n - 1;
+            }
+        }
+        return buffer.position() - position;
+    }
+
+    private static void putUtf8(int cp, ByteBuffer buffer) {
+        if (cp < 0x800) {
+            buffer.put((byte) (0xc0 | (cp >> 6)));
+            buffer.put((byte) (0x80 | (cp & 0x3f)));
+        } else if (cp < 0x10000) {
+            buffer.put((byte) (0xe0 | (cp >> 12)));
+            buffer.put((byte) (0x80 | ((cp >> 6) & 0x3f)));
+            buffer.put((byte) (0x80 | (cp & 0x3f)));
+        } else {
+            buffer.put((byte) (0xf0 | (cp >> 18)));
+            buffer.put((byte) (0x80 | ((cp >> 12) & 0x3f)));
+            buffer.put((byte) (0x80 | ((cp >> 6) & 0x3f)));
+            buffer.put((byte) (0x80 | (cp & 0x3f)));
+        }
+    }
+
+    private static int indexOfEncoded(CharSequence input, int start, int end, boolean plusAsSpace) {
+        int i = CharScanner.indexOf(input, '%', start, end);
+        if (plusAsSpace) {
+            int j = CharScanner.indexOf(input, '+', start, i < 0 ? end : i);
+            if (j >= 0) {
+                return j;
+            }
+        }
+        return i;
+    }
+
+    private void decodeUtf8(CharSequence input, int start, int end, boolean plusAsSpace)
+            throws MalformedInputException {
+        needed = 0;
+        for (int i = start; i < end; i++) {
             char c = input.charAt(i);
             if (c != '%') {
-                handleEncodedBytes();
-                outputBuf.append(c);
+                if (needed > 0) {
+                    malformed();
+                }
+                outputBuf.append(plusAsSpace && c == '+' ? ' ' : c);
+                // append the run of characters up to the next encoded one at once
+                int j = indexOfEncoded(input, i + 1, end, plusAsSpace);
+                if (j < 0) {
+                    j = end;
+                }
+                outputBuf.append(input, i + 1, j);
+                i = j - 1;
                 continue;
             }
-            if (i + 2 >= input.length()) {
+            if (i + 2 >= end) {
+                if (decoder.malformedInputAction() == CodingErrorAction.REPORT) {
+                    throw new MalformedInputException(i);
+                }
+                continue;
+            }
+            int b1 = decode(input.charAt(++i));
+            int b2 = decode(input.charAt(++i));
+            if (b1 == -1 || b2 == -1) {
                 CodingErrorAction codingErrorAction = decoder.malformedInputAction();
                 if (codingErrorAction == CodingErrorAction.REPORT) {
                     throw new MalformedInputException(i);
                 }
                 if (codingErrorAction == CodingErrorAction.REPLACE) {
-                    continue;
+                    decodeUtf8Byte(0xff);
                 }
+            } else {
+                decodeUtf8Byte(b1 << 4 | b2);
+            }
+        }
+        if (needed > 0) {
+            malformed();
+        }
+    }
+
+    /**
+     * Feed a byte into the UTF-8 state machine. Overlong forms, surrogates and code points
+     * beyond U+10FFFF are rejected as malformed, with the same replacements as the JDK UTF-8 decoder.
+     *
+     * @param b the byte
+     */
+    private void decodeUtf8Byte(int b) throws MalformedInputException {
+        if (needed > 0) {
+            if (b >= lower && b <= upper) {
+                codePoint = codePoint << 6 | (b & 0x3f);
+                seen++;
+                lower = 0x80;
+                upper = 0xbf;
+                if (--needed == 0) {
+                    if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+                        // an encoded surrogate is malformed as a whole
+                        malformed();
+                    } else {
+                        outputBuf.appendCodePoint(codePoint);
+                    }
+                }
+                return;
+            }
+            // the malformed sequence ends before this byte, which may start a new sequence
+            malformed();
+        }
+        lower = 0x80;
+        upper = 0xbf;
+        seen = 1;
+        if (b < 0x80) {
+            outputBuf.append((char) b);
+        } else if (b >= 0xc2 && b <= 0xdf) {
+            needed = 1;
+            codePoint = b & 0x1f;
+        } else if (b >= 0xe0 && b <= 0xef) {
+            needed = 2;
+            codePoint = b & 0x0f;
+            if (b == 0xe0) {
+                lower = 0xa0;
+            }
+        } else if (b >= 0xf0 && b <= 0xf4) {
+            needed = 3;
+            codePoint = b & 0x07;
+            if (b == 0xf0) {
+                lower = 0x90;
+            } else if (b == 0xf4) {
+                upper = 0x8f;
+            }
+        } else {
+            malformed();
+        }
+    }
+
+    private void malformed() throws MalformedInputException {
+        int length = seen;
+        needed = 0;
+        CodingErrorAction codingErrorAction = decoder.malformedInputAction();
+        if (codingErrorAction == CodingErrorAction.REPORT) {
+            throw new MalformedInputException(length);
+        }
+        if (codingErrorAction == CodingErrorAction.REPLACE) {
+            outputBuf.append(decoder.replacement());
+        }
+    }
+
+    private void decodeCharset(CharSequence input, int start, int end, boolean plusAsSpace)
+            throws MalformedInputException, UnmappableCharacterException {
+        encodedBuf.clear();
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c != '%') {
+                handleEncodedBytes();
+                outputBuf.append(plusAsSpace && c == '+' ? ' ' : c);
+                continue;
+            }
+            if (i + 2 >= end) {
+                CodingErrorAction codingErrorAction = decoder.malformedInputAction();
+                if (codingErrorAction == CodingErrorAction.REPORT) {
+                    throw new MalformedInputException(i);
+                }
+                continue;
             }
             if (encodedBuf.remaining() == 0) {
                 ByteBuffer largerBuf = ByteBuffer.allocate(encodedBuf.capacity() * 2);
@@ -100,10 +403,8 @@ public class PercentDecoder {
                 largerBuf.put(encodedBuf);
                 encodedBuf = largerBuf;
             }
-            int c1 = input.charAt(++i);
-            int c2 = input.charAt(++i);
-            byte b1 = (byte) decode((char) c1);
-            byte b2 = (byte) decode((char) c2);
+            int b1 = decode(input.charAt(++i));
+            int b2 = decode(input.charAt(++i));
             if (b1 == -1 || b2 == -1) {
                 CodingErrorAction codingErrorAction = decoder.malformedInputAction();
                 if (codingErrorAction == CodingErrorAction.REPORT) {
@@ -113,12 +414,10 @@ public class PercentDecoder {
                     encodedBuf.put((byte) 0xff);
                 }
             } else {
-                byte b = (byte) ((b1 & 0xf) << 4 | (b2 & 0xf));
-                encodedBuf.put(b);
+                encodedBuf.put((byte) (b1 << 4 | b2));
             }
         }
         handleEncodedBytes();
-        return outputBuf.toString();
     }
 
     private static int decode(char c) {
@@ -1,10 +1,15 @@
 package org.xbib.net;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnmappableCharacterException;
 import java.util.BitSet;
 
@@ -14,125 +19,296 @@ import java.util.BitSet;
  * This is typically done when encoding components of URLs. See {@link PercentEncoders} for pre-configured
  * PercentEncoder instances.
  *
- * This class is not thread-safe.
+ * Safe characters are looked up in a precomputed table of the 128 ASCII characters. For UTF-8, the bytes of
+ * unsafe characters are computed directly, a {@link CharsetEncoder} is only created for other charsets.
+ *
+ * This class is immutable and thread-safe, instances can be shared.
  */
 public class PercentEncoder {
 
     private static final char[] HEX_CODE = "0123456789ABCDEF".toCharArray();
 
-    private final BitSet safeChars;
+    private final boolean[] safeChars;
 
-    private final CharsetEncoder encoder;
+    private final Charset charset;
 
-    private final StringBuilderPercentEncoderOutputHandler stringHandler;
+    private final boolean utf8;
 
-    private final ByteBuffer encodedBytes;
+    private final CodingErrorAction malformedInputAction;
 
-    private final CharBuffer unsafeCharsToEncode;
+    private final CodingErrorAction unmappableCharacterAction;
 
     /**
      * @param safeChars      the set of chars to NOT encode, stored as a bitset with the int positions corresponding to
-     *                       those chars set to true. Treated as read only.
-     * @param charsetEncoder charset encoder to encode characters with. Make sure to not re-use CharsetEncoder instances
-     *                       across threads.
+     *                       those chars set to true. Only the ASCII range is taken into account.
+     * @param charsetEncoder charset encoder that provides the charset and the coding error actions. The encoder
+     *                       instance itself is not used.
      */
     PercentEncoder(BitSet safeChars, CharsetEncoder charsetEncoder) {
-        this.safeChars = safeChars;
-        this.encoder = charsetEncoder;
-        this.stringHandler = new StringBuilderPercentEncoderOutputHandler();
-        int maxBytesPerChar = 1 + (int) encoder.maxBytesPerChar();
-        encodedBytes = ByteBuffer.allocate(maxBytesPerChar * 2);
-        unsafeCharsToEncode = CharBuffer.allocate(2);
+        this(safeChars, charsetEncoder.charset(),
+                charsetEncoder.malformedInputAction(), charsetEncoder.unmappableCharacterAction());
+    }
+
+    /**
+     * @param safeChars                 the set of chars to NOT encode. Only the ASCII range is taken into account.
+     * @param charset                   the charset to encode characters with
+     * @param malformedInputAction      the action on malformed input
+     * @param unmappableCharacterAction the action on unmappable characters
+     */
+    PercentEncoder(BitSet safeChars, Charset charset,
+                   CodingErrorAction malformedInputAction,
+                   CodingErrorAction unmappableCharacterAction) {
+        this.safeChars = new boolean[128];
+        for (int i = 0; i < 128; i++) {
+            this.safeChars[i] = safeChars.get(i);
+        }
+        this.charset = charset;
+        this.utf8 = StandardCharsets.UTF_8.equals(charset);
+        this.malformedInputAction = malformedInputAction;
+        this.unmappableCharacterAction = unmappableCharacterAction;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Return true if the character is safe, i.e. is not encoded by this encoder.
+     *
+     * @param c the character
+     * @return true if safe
+     */
+    public boolean isSafe(char c) {
+        return c < 128 && safeChars[c];
+    }
+
+    /**
+     * Find the first character in the input that requires encoding.
+     *
+     * @param input the input
+     * @param from  the offset to start from
+     * @return the offset of the first character to encode, or -1 if there is no such character
+     */
+    public int indexOfUnsafe(CharSequence input, int from) {
+        int length = input.length();
+        for (int i = from; i < length; i++) {
+            char c = input.charAt(i);
+            if (c >= 128 || !safeChars[c]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Encode the input and return the resulting text as a String.
+     *
+     * @param input input string
+     * @return the input string with every character that's not in safeChars turned into its byte representation via the
+     * instance's charset and then percent-encoded. If no character needs to be encoded, the input itself is returned.
+     * @throws MalformedInputException      if encoder is configured to report errors and malformed input is detected
+     * @throws UnmappableCharacterException if encoder is configured to report errors and an unmappable character is
+     *                                      detected
+     */
+    public String encode(CharSequence input) throws MalformedInputException, UnmappableCharacterException {
+        if (input == null) {
+            return null;
+        }
+        int i = indexOfUnsafe(input, 0);
+        if (i < 0) {
+            return input.toString();
+        }
+        StringBuilder sb = new StringBuilder(input.length() + 16);
+        sb.append(input, 0, i);
+        encode(input, i, sb);
+        return sb.toString();
     }
 
     /**
-     * Encode the input and pass output chars to a handler.
+     * Encode the input and append the result to a string builder.
      *
-     * @param input   input string
-     * @param handler handler to call on each output character
+     * @param input input
+     * @param sb    the string builder
      * @throws MalformedInputException      if encoder is configured to report errors and malformed input is detected
      * @throws UnmappableCharacterException if encoder is configured to report errors and an unmappable character is
      *                                      detected
      */
-    private void encode(CharSequence input, StringBuilderPercentEncoderOutputHandler handler)
+    public void encode(CharSequence input, StringBuilder sb)
             throws MalformedInputException, UnmappableCharacterException {
-        for (int i = 0; i < input.length(); i++) {
+        if (input == null) {
+            return;
+        }
+        encode(input, 0, sb);
+    }
+
+    /**
+     * Encode the input and append the result to an appendable.
+     *
+     * @param input      input
+     * @param appendable the appendable
+     * @throws IOException if the appendable fails, or if encoder is configured to report errors and
+     *                     malformed input or an unmappable character is detected
+     */
+    public void encode(CharSequence input, Appendable appendable) throws IOException {
+        if (input == null) {
+            return;
+        }
+        encodeTo(input, 0, input.length(), appendable);
+    }
+
+    /**
+     * Encode a part of the input and append the result to an appendable.
+     *
+     * @param input      input
+     * @param start      the offset of the first character to encode
+     * @param end        the offset after the last character to encode
+     * @param appendable the appendable
+     * @throws IOException if the appendable fails, or if encoder is configured to report errors and
+     *                     malformed input or an unmappable character is detected
+     */
+    public void encode(CharSequence input, int start, int end, Appendable appendable) throws IOException {
+        encodeTo(input, start, end, appendable);
+    }
+
+    /**
+     * Encode the input and write the result as US-ASCII bytes into a byte buffer.
+     *
+     * @param input  input
+     * @param buffer the byte buffer
+     * @throws MalformedInputException      if encoder is configured to report errors and malformed input is detected
+     * @throws UnmappableCharacterException if encoder is configured to report errors and an unmappable character is
+     *                                      detected
+     * @throws java.nio.BufferOverflowException if the buffer has not enough space left
+     */
+    public void encode(CharSequence input, ByteBuffer buffer)
+            throws MalformedInputException, UnmappableCharacterException {
+        if (input == null) {
+            return;
+        }
+        try {
+            encodeTo(input, 0, input.length(), new ByteBufferAppendable(buffer));
+        } catch (MalformedInputException | UnmappableCharacterException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void encode(CharSequence input, int from, StringBuilder sb)
+            throws MalformedInputException, UnmappableCharacterException {
+        try {
+            encodeTo(input, from, input.length(), sb);
+        } catch (MalformedInputException | UnmappableCharacterException e) {
+            throw e;
+        } catch (IOException e) {
+            // never thrown by a string builder
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void encodeTo(CharSequence input, int from, int length, Appendable out) throws IOException {
+        CharsetEncoder encoder = null;
+        ByteBuffer encodedBytes = null;
+        int i = from;
+        while (i < length) {
+            int start = i;
             char c = input.charAt(i);
-            int cp = Character.codePointAt(String.valueOf(c), 0);
-            if (safeChars.get(cp)) {
-                handler.onOutputChar(c);
+            while (c < 128 && safeChars[c]) {
+                if (++i == length) {
+                    break;
+                }
+                c = input.charAt(i);
+            }
+            if (i > start) {
+                // append the run of safe characters at once
+                out.append(input, start, i);
                 continue;
             }
-            unsafeCharsToEncode.clear();
-            unsafeCharsToEncode.append(c);
+            int n = 1;
             if (Character.isHighSurrogate(c)) {
-                if (input.length() > i + 1) {
+                if (i + 1 < length) {
                     char lowSurrogate = input.charAt(i + 1);
                     if (Character.isLowSurrogate(lowSurrogate)) {
-                        unsafeCharsToEncode.append(lowSurrogate);
-                        i++;
+                        n = 2;
                     } else {
                         throw new IllegalArgumentException("invalid UTF-16: character "
                                 + i + " is a high surrogate (\\u"
-                                + Integer.toHexString(cp) + "), but char " + (i + 1)
+                                + Integer.toHexString(c) + "), but char " + (i + 1)
                                 + " is not a low surrogate (\\u"
-                                + Integer.toHexString(Character.codePointAt(String.valueOf(lowSurrogate), 0)) + ")");
+                                + Integer.toHexString(lowSurrogate) + ")");
                     }
                 } else {
                     throw new IllegalArgumentException("invalid UTF-16: the last character in the input string "
-                            + "was a high surrogate (\\u" + Integer.toHexString(cp) + ")");
+                            + "was a high surrogate (\\u" + Integer.toHexString(c) + ")");
                 }
             }
-            flushUnsafeCharBuffer(handler);
+            if (utf8) {
+                if (n == 2) {
+                    writeUtf8(Character.toCodePoint(c, input.charAt(i + 1)), out);
+                } else if (Character.isLowSurrogate(c)) {
+                    if (malformedInputAction == CodingErrorAction.REPORT) {
+                        throw new MalformedInputException(1);
+                    }
+                    if (malformedInputAction == CodingErrorAction.REPLACE) {
+                        writeByte('?', out);
+                    }
+                } else {
+                    writeUtf8(c, out);
+                }
+            } else {
+                if (encoder == null) {
+                    encoder = charset.newEncoder()
+                            .onMalformedInput(malformedInputAction)
+                            .onUnmappableCharacter(unmappableCharacterAction);
+                    encodedBytes = ByteBuffer.allocate(2 * (1 + (int) encoder.maxBytesPerChar()));
+                }
+                writeCharset(CharBuffer.wrap(input, i, i + n), encoder, encodedBytes, out);
+            }
+            i += n;
         }
     }
 
-    /**
-     * Encode the input and return the resulting text as a String.
-     *
-     * @param input input string
-     * @return the input string with every character that's not in safeChars turned into its byte representation via the
-     * instance's encoder and then percent-encoded
-     * @throws MalformedInputException      if encoder is configured to report errors and malformed input is detected
-     * @throws UnmappableCharacterException if encoder is configured to report errors and an unmappable character is
-     *                                      detected
-     */
-    public String encode(CharSequence input) throws MalformedInputException, UnmappableCharacterException {
-        if (input == null) {
-            return null;
+    private static void writeUtf8(int cp, Appendable out) throws IOException {
+        if (cp < 0x80) {
+            writeByte(cp, out);
+        } else if (cp < 0x800) {
+            writeByte(0xc0 | (cp >> 6), out);
+            writeByte(0x80 | (cp & 0x3f), out);
+        } else if (cp < 0x10000) {
+            writeByte(0xe0 | (cp >> 12), out);
+            writeByte(0x80 | ((cp >> 6) & 0x3f), out);
+            writeByte(0x80 | (cp & 0x3f), out);
+        } else {
+            writeByte(0xf0 | (cp >> 18), out);
+            writeByte(0x80 | ((cp >> 12) & 0x3f), out);
+            writeByte(0x80 | ((cp >> 6) & 0x3f), out);
+            writeByte(0x80 | (cp & 0x3f), out);
         }
-        stringHandler.reset();
-        stringHandler.ensureCapacity(input.length());
-        encode(input, stringHandler);
-        return stringHandler.getContents();
     }
 
     /**
-     * Encode unsafeCharsToEncode to bytes as per charsetEncoder, then percent-encode those bytes into output.
-     *
-     * Side effects: unsafeCharsToEncode will be read from and cleared. encodedBytes will be cleared and written to.
-     *
-     * @param handler where the encoded versions of the contents of unsafeCharsToEncode will be written
+     * Encode chars to bytes with a charset encoder, then percent-encode those bytes into output.
      */
-    private void flushUnsafeCharBuffer(StringBuilderPercentEncoderOutputHandler handler)
-            throws MalformedInputException, UnmappableCharacterException {
-        // need to read from the char buffer, which was most recently written to
-        unsafeCharsToEncode.flip();
+    private static void writeCharset(CharBuffer chars, CharsetEncoder encoder, ByteBuffer encodedBytes,
+                                     Appendable out) throws IOException {
         encodedBytes.clear();
         encoder.reset();
-        CoderResult result = encoder.encode(unsafeCharsToEncode, encodedBytes, true);
+        CoderResult result = encoder.encode(chars, encodedBytes, true);
         throwIfError(result);
         result = encoder.flush(encodedBytes);
         throwIfError(result);
         encodedBytes.flip();
         while (encodedBytes.hasRemaining()) {
-            byte b = encodedBytes.get();
-            handler.onOutputChar('%');
-            handler.onOutputChar(HEX_CODE[b >> 4 & 0xF]);
-            handler.onOutputChar(HEX_CODE[b & 0xF]);
+            writeByte(encodedBytes.get(), out);
         }
     }
 
+    private static void writeByte(int b, Appendable out) throws IOException {
+        out.append('%');
+        out.append(HEX_CODE[b >> 4 & 0xF]);
+        out.append(HEX_CODE[b & 0xF]);
+    }
+
     /**
      * @param result result to check
      * @throws IllegalStateException        if result is overflow
@@ -151,28 +327,34 @@ public class PercentEncoder {
         }
     }
 
-    static class StringBuilderPercentEncoderOutputHandler {
-
-        private final StringBuilder stringBuilder;
+    /**
+     * Writes the encoded output, which is always US-ASCII, to a byte buffer.
+     */
+    private static final class ByteBufferAppendable implements Appendable {
 
-        StringBuilderPercentEncoderOutputHandler() {
-            stringBuilder = new StringBuilder();
-        }
+        private final ByteBuffer buffer;
 
-        String getContents() {
-            return stringBuilder.toString();
+        ByteBufferAppendable(ByteBuffer buffer) {
+            this.buffer = buffer;
         }
 
-        void reset() {
-            stringBuilder.setLength(0);
+        @Override
+        public Appendable append(CharSequence csq) {
+            return append(csq, 0, csq.length());
         }
 
-        void ensureCapacity(int length) {
-            stringBuilder.ensureCapacity(length);
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            for (int i = start; i < end; i++) {
+                buffer.put((byte) csq.charAt(i));
+            }
+            return this;
         }
 
-        void onOutputChar(char c) {
-            stringBuilder.append(c);
+        @Override
+        public Appendable append(char c) {
+            buffer.put((byte) c);
+            return this;
         }
     }
 }
@@ -1,12 +1,15 @@
 package org.xbib.net;
 
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.BitSet;
 
 import static java.nio.charset.CodingErrorAction.REPORT;
 
 /**
  * See RFC 3986, RFC 1738 and http://www.lunatech-research.com/archives/2009/02/03/what-every-web-developer-must-know-about-url-encoding.
+ *
+ * The encoders are thread-safe, UTF-8 encoders are shared instances.
  */
 public class PercentEncoders {
 
@@ -53,44 +56,56 @@ public class PercentEncoders {
         addFragment(FRAGMENT_BIT_SET);
     }
 
+    private static final PercentEncoder UTF8_UNRESERVED_ENCODER = create(UNRESERVED_BIT_SET, StandardCharsets.UTF_8);
+
+    private static final PercentEncoder UTF8_COOKIE_ENCODER = create(UNRESERVED_BIT_SET, StandardCharsets.UTF_8);
+
+    private static final PercentEncoder UTF8_REG_NAME_ENCODER = create(REG_NAME_BIT_SET, StandardCharsets.UTF_8);
+
+    private static final PercentEncoder UTF8_PATH_ENCODER = create(PATH_BIT_SET, StandardCharsets.UTF_8);
+
+    private static final PercentEncoder UTF8_MATRIX_ENCODER = create(MATRIX_BIT_SET, StandardCharsets.UTF_8);
+
+    private static final PercentEncoder UTF8_QUERY_ENCODER = create(QUERY_BIT_SET, StandardCharsets.UTF_8);
+
+    private static final PercentEncoder UTF8_QUERY_PARAM_ENCODER = create(QUERY_PARAM_BIT_SET, StandardCharsets.UTF_8);
+
+    private static final PercentEncoder UTF8_FRAGMENT_ENCODER = create(FRAGMENT_BIT_SET, StandardCharsets.UTF_8);
+
     public static PercentEncoder getUnreservedEncoder(Charset charset) {
-        return new PercentEncoder(UNRESERVED_BIT_SET,
-                charset.newEncoder().onMalformedInput(REPORT).onUnmappableCharacter(REPORT));
+        return StandardCharsets.UTF_8.equals(charset) ? UTF8_UNRESERVED_ENCODER : create(UNRESERVED_BIT_SET, charset);
     }
 
     public static PercentEncoder getCookieEncoder(Charset charset) {
-        return new PercentEncoder(UNRESERVED_BIT_SET,
-                charset.newEncoder().onMalformedInput(REPORT).onUnmappableCharacter(REPORT));
+        return StandardCharsets.UTF_8.equals(charset) ? UTF8_COOKIE_ENCODER : create(UNRESERVED_BIT_SET, charset);
     }
 
     public static PercentEncoder getRegNameEncoder(Charset charset) {
-        return new PercentEncoder(REG_NAME_BIT_SET,
-                charset.newEncoder().onMalformedInput(REPORT).onUnmappableCharacter(REPORT));
+        return StandardCharsets.UTF_8.equals(charset) ? UTF8_REG_NAME_ENCODER : create(REG_NAME_BIT_SET, charset);
     }
 
     public static PercentEncoder getPathEncoder(Charset charset) {
-        return new PercentEncoder(PATH_BIT_SET,
-                charset.newEncoder().onMalformedInput(REPORT).onUnmappableCharacter(REPORT));
+        return StandardCharsets.UTF_8.equals(charset) ? UTF8_PATH_ENCODER : create(PATH_BIT_SET, charset);
     }
 
     public static PercentEncoder getMatrixEncoder(Charset charset) {
-        return new PercentEncoder(MATRIX_BIT_SET,
-                charset.newEncoder().onMalformedInput(REPORT).onUnmappableCharacter(REPORT));
+        return StandardCharsets.UTF_8.equals(charset) ? UTF8_MATRIX_ENCODER : create(MATRIX_BIT_SET, charset);
     }
 
     public static PercentEncoder getQueryEncoder(Charset charset) {
-        return new PercentEncoder(QUERY_BIT_SET,
-                charset.newEncoder().onMalformedInput(REPORT).onUnmappableCharacter(REPORT));
+        return StandardCharsets.UTF_8.equals(charset) ? UTF8_QUERY_ENCODER : create(QUERY_BIT_SET, charset);
     }
 
     public static PercentEncoder getQueryParamEncoder(Charset charset) {
-        return new PercentEncoder(QUERY_PARAM_BIT_SET,
-                charset.newEncoder().onMalformedInput(REPORT).onUnmappableCharacter(REPORT));
+        return StandardCharsets.UTF_8.equals(charset) ? UTF8_QUERY_PARAM_ENCODER : create(QUERY_PARAM_BIT_SET, charset);
     }
 
     public static PercentEncoder getFragmentEncoder(Charset charset) {
-        return new PercentEncoder(FRAGMENT_BIT_SET,
-                charset.newEncoder().onMalformedInput(REPORT).onUnmappableCharacter(REPORT));
+        return StandardCharsets.UTF_8.equals(charset) ? UTF8_FRAGMENT_ENCODER : create(FRAGMENT_BIT_SET, charset);
+    }
+
+    private static PercentEncoder create(BitSet bitSet, Charset charset) {
+        return new PercentEncoder(bitSet, charset, REPORT, REPORT);
     }
 
     private PercentEncoders() {
@@ -0,0 +1,379 @@
+package org.xbib.net;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.IDN;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The public suffix list, for finding the registrable domain of a host.
+ *
+ * A public suffix is a domain under which anyone can register names, such as {@code com} or {@code co.uk}.
+ * The registrable domain of a host is its public suffix plus one label, such as {@code example.co.uk}
+ * for {@code www.example.co.uk}. The rules of the list are held in an immutable trie of the labels in reverse
+ * order, with the labels in one character array and the children of a node sorted, so a lookup walks
+ * the labels of the host from right to left with a binary search per label and does not allocate.
+ *
+ * Rules with non-ASCII labels are also added in their ASCII form, so hosts in punycode, as created by
+ * {@link URLBuilder}, and in Unicode are both found. ASCII letters of hosts are compared case-insensitively.
+ *
+ * The list bundled with this library is the one from <a href="https://publicsuffix.org/">publicsuffix.org</a>.
+ */
+public final class PublicSuffixList {
+
+    private static final String RESOURCE = "public_suffix_list.dat";
+
+    private static final int RULE = 1;
+
+    private static final int EXCEPTION = 2;
+
+    private static final int PRIVATE = 4;
+
+    private final char[] labels;
+
+    private final int[] labelStart;
+
+    private final int[] labelEnd;
+
+    private final int[] firstChild;
+
+    private final int[] childCount;
+
+    private final int[] wildcard;
+
+    private final byte[] flags;
+
+    private PublicSuffixList(Node root) {
+        List<Node> nodes = new ArrayList<>();
+        ArrayDeque<Node> queue = new ArrayDeque<>();
+        nodes.add(root);
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            List<String> names = new ArrayList<>(node.children.keySet());
+            names.sort(null);
+            node.firstChild = nodes.size();
+            for (String name : names) {
+                Node child = node.children.get(name);
+                child.index = nodes.size();
+                nodes.add(child);
+                queue.add(child);
+            }
+        }
+        int size = nodes.size();
+        this.labelStart = new int[size];
+        this.labelEnd = new int[size];
+        this.firstChild = new int[size];
+        this.childCount = new int[size];
+        this.wildcard = new int[size];
+        this.flags = new byte[size];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            Node node = nodes.get(i);
+            labelStart[i] = sb.length();
+            sb.append(node.label);
+            labelEnd[i] = sb.length();
+            firstChild[i] = node.firstChild;
+            childCount[i] = node.children.size();
+            Node w = node.children.get("*");
+            wildcard[i] = w != null ? w.index : -1;
+            flags[i] = (byte) node.flags;
+        }
+        this.labels = sb.toString().toCharArray();
+    }
+
+    /**
+     * Return the bundled public suffix list. It is loaded once, when it is first requested.
+     *
+     * @return the public suffix list
+     */
+    public static PublicSuffixList getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Load a public suffix list in the format of publicsuffix.org.
+     *
+     * @param inputStream the input stream of the list, it is not closed
+     * @return the public suffix list
+     * @throws IOException if the list can not be read
+     */
+    public static PublicSuffixList load(InputStream inputStream) throws IOException {
+        Node root = new Node("");
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        boolean privateDomains = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.strip();
+            if (line.startsWith("//")) {
+                if (line.contains("===BEGIN PRIVATE DOMAINS===")) {
+                    privateDomains = true;
+                } else if (line.contains("===END PRIVATE DOMAINS===")) {
+                    privateDomains = false;
+                }
+                continue;
+            }
+            int i = 0;
+            while (i < line.length() && !Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            String rule = line.substring(0, i);
+            if (rule.isEmpty()) {
+                continue;
+            }
+            int ruleFlags = privateDomains ? PRIVATE : 0;
+            if (rule.charAt(0) == '!') {
+                rule = rule.substring(1);
+                ruleFlags |= EXCEPTION;
+            } else {
+                ruleFlags |= RULE;
+            }
+            add(root, rule, ruleFlags);
+            String ascii;
+            try {
+                ascii = IDN.toASCII(rule, IDN.ALLOW_UNASSIGNED);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (!ascii.equals(rule)) {
+                add(root, ascii, ruleFlags);
+            }
+        }
+        return new PublicSuffixList(root);
+    }
+
+    /**
+     * Find the registrable domain of a host, with the rules of all domains.
+     *
+     * @param host the host
+     * @return the offset of the registrable domain in the host, or -1 if the host has no registrable domain
+     * @see #registrableDomain(CharSequence, boolean)
+     */
+    public int registrableDomain(CharSequence host) {
+        return registrableDomain(host, true);
+    }
+
+    /**
+     * Find the registrable domain of a host. The registrable domain starts at the returned offset and
+     * ends at the end of the host, or before a trailing dot. A host that is a public suffix itself, an IP address,
+     * or an invalid host name has no registrable domain.
+     *
+     * @param host the host
+     * @param privateDomains true if the rules of the private domains, such as {@code github.io}, are used
+     * @return the offset of the registrable domain in the host, or -1 if the host has no registrable domain
+     */
+    public int registrableDomain(CharSequence host, boolean privateDomains) {
+        int end = end(host);
+        if (end < 0) {
+            return -1;
+        }
+        int suffix = publicSuffix(host, end, privateDomains);
+        if (suffix <= 0) {
+            return -1;
+        }
+        int start = lastIndexOfDot(host, suffix - 1) + 1;
+        return start < suffix - 1 ? start : -1;
+    }
+
+    /**
+     * Find the public suffix of a host. If no rule matches, the public suffix is the last label.
+     *
+     * @param host the host
+     * @param privateDomains true if the rules of the private domains are used
+     * @return the offset of the public suffix in the host, or -1 if the host is an IP address or invalid
+     */
+    public int publicSuffix(CharSequence host, boolean privateDomains) {
+        int end = end(host);
+        return end < 0 ? -1 : publicSuffix(host, end, privateDomains);
+    }
+
+    /**
+     * Check if a host is a public suffix, with the rules of all domains.
+     *
+     * @param host the host
+     * @return true if the host is a public suffix
+     */
+    public boolean isPublicSuffix(CharSequence host) {
+        return publicSuffix(host, true) == 0;
+    }
+
+    /**
+     * Return the registrable domain of a host, with the rules of all domains.
+     *
+     * @param host the host
+     * @return the registrable domain, or null if the host has no registrable domain
+     */
+    public String getRegistrableDomain(String host) {
+        int start = registrableDomain(host, true);
+        return start < 0 ? null : host.substring(start, end(host));
+    }
+
+    /**
+     * Return the end of the host name without a trailing dot, or -1 if the host is empty, an IP address,
+     * or has an empty label.
+     */
+    private static int end(CharSequence host) {
+        int end = host.length();
+        if (end > 0 && host.charAt(end - 1) == '.') {
+            end--;
+        }
+        if (end == 0 || host.charAt(0) == '[') {
+            return -1;
+        }
+        // IPv6 addresses contain colons, the top level label of IPv4 addresses is numeric
+        boolean numeric = true;
+        boolean topLevel = true;
+        char prev = '.';
+        for (int i = end - 1; i >= 0; i--) {
+            char c = host.charAt(i);
+            if (c == ':') {
+                return -1;
+            }
+            if (c == '.') {
+                if (prev == '.') {
+                    return -1;
+                }
+                topLevel = false;
+            } else if (topLevel) {
+                numeric &= c >= '0' && c <= '9';
+            }
+            prev = c;
+        }
+        return numeric || prev == '.' ? -1 : end;
+    }
+
+    private int publicSuffix(CharSequence host, int end, boolean privateDomains) {
+        int node = 0;
+        int suffix = -1;
+        int labelEnd = end;
+        while (true) {
+            int labelStart = lastIndexOfDot(host, labelEnd) + 1;
+            if (labelStart == labelEnd) {
+                // empty label
+                return -1;
+            }
+            if (suffix < 0) {
+                // the implicit rule "*"
+                suffix = labelStart;
+            }
+            int child = findChild(node, host, labelStart, labelEnd);
+            if (child >= 0 && isRule(child, EXCEPTION, privateDomains)) {
+                // an exception rule has at least two labels, the public suffix is the rule without its first label
+                return labelEnd + 1;
+            }
+            int w = wildcard[node];
+            if ((child >= 0 && isRule(child, RULE, privateDomains)) || (w >= 0 && isRule(w, RULE, privateDomains))) {
+                suffix = labelStart;
+            }
+            node = child >= 0 ? child : w;
+            if (node < 0 || labelStart == 0) {
+                break;
+            }
+            labelEnd = labelStart - 1;
+        }
+        return suffix;
+    }
+
+    private boolean isRule(int node, int flag, boolean privateDomains) {
+        int f = flags[node];
+        return (f & flag) != 0 && (privateDomains || (f & PRIVATE) == 0);
+    }
+
+    private int findChild(int node, CharSequence host, int start, int end) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = compare(mid, host, start, end);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int compare(int node, CharSequence host, int start, int end) {
+        int s = labelStart[node];
+        int length1 = labelEnd[node] - s;
+        int length2 = end - start;
+        int n = Math.min(length1, length2);
+        for (int i = 0; i < n; i++) {
+            char c1 = labels[s + i];
+            char c2 = host.charAt(start + i);
+            if (c2 >= 'A' && c2 <= 'Z') {
+                c2 = (char) (c2 + ('a' - 'A'));
+            }
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return length1 - length2;
+    }
+
+    private static int lastIndexOfDot(CharSequence host, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (host.charAt(i) == '.') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void add(Node root, String rule, int ruleFlags) {
+        String[] parts = rule.split("\\.");
+        Node node = root;
+        for (int i = parts.length - 1; i >= 0; i--) {
+            node = node.children.computeIfAbsent(parts[i], Node::new);
+        }
+        node.flags |= ruleFlags;
+    }
+
+    /**
+     * A node of the trie while it is built.
+     */
+    private static final class Node {
+
+        private final String label;
+
+        private final Map<String, Node> children;
+
+        private int flags;
+
+        private int index;
+
+        private int firstChild;
+
+        Node(String label) {
+            this.label = label;
+            this.children = new HashMap<>();
+        }
+    }
+
+    private static final class Holder {
+
+        private static final PublicSuffixList INSTANCE = load();
+
+        private static PublicSuffixList load() {
+            try (InputStream inputStream = PublicSuffixList.class.getResourceAsStream(RESOURCE)) {
+                if (inputStream == null) {
+                    throw new IllegalStateException("resource not found: " + RESOURCE);
+                }
+                return PublicSuffixList.load(inputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
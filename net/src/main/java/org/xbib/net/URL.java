@@ -67,44 +67,45 @@ public class URL implements Comparable<URL> {
 
     static final String DOUBLE_SLASH = "//";
 
+    private static volatile URLCache cache;
+
     private final transient URLBuilder builder;
 
     private final transient Scheme scheme;
 
-    private final transient PercentEncoder queryParamEncoder;
-
-    private final transient PercentEncoder regNameEncoder;
-
-    private final transient PercentEncoder pathEncoder;
+    /**
+     * The encoded components. They are computed on first access, an empty string
+     * denotes an absent query or fragment.
+     */
+    private String hostinfo;
 
-    private final transient PercentEncoder matrixEncoder;
+    private String path;
 
-    private final transient PercentEncoder fragmentEncoder;
+    private String query;
 
-    private final String hostinfo;
+    private String fragment;
 
-    private final String path;
+    private String internalStringRepresentation;
 
-    private final String query;
+    private String externalStringRepresentation;
 
-    private final String fragment;
+    private String internalQuery;
 
-    private String internalStringRepresentation;
+    private int hash;
 
-    private String externalStringRepresentation;
+    /**
+     * True if this URL is shared by a {@link URLCache}, then its builder is not exposed by {@link #mutator()}.
+     */
+    private final boolean shared;
 
     URL(URLBuilder builder) {
+        this(builder, false);
+    }
+
+    URL(URLBuilder builder, boolean shared) {
         this.builder = builder;
         this.scheme = SchemeRegistry.getInstance().getScheme(builder.scheme);
-        this.queryParamEncoder = PercentEncoders.getQueryParamEncoder(builder.charset);
-        this.regNameEncoder = PercentEncoders.getRegNameEncoder(builder.charset);
-        this.pathEncoder = PercentEncoders.getPathEncoder(builder.charset);
-        this.matrixEncoder = PercentEncoders.getMatrixEncoder(builder.charset);
-        this.fragmentEncoder = PercentEncoders.getFragmentEncoder(builder.charset);
-        this.hostinfo = encodeHostInfo();
-        this.path = encodePath();
-        this.query = encodeQuery();
-        this.fragment = encodeFragment();
+        this.shared = shared;
     }
 
     public static URLBuilder builder() {
@@ -144,6 +145,18 @@ public class URL implements Comparable<URL> {
         return NULL_URL;
     }
 
+    /**
+     * Set a cache to be used by {@link #from(String)} and {@link #create(String)}, and by
+     * {@link #from(String, Charset, CodingErrorAction, boolean, boolean)} for UTF-8 with
+     * {@link CodingErrorAction#REPORT}. By default, there is no cache. URLs from a cache are shared,
+     * {@link #mutator()} throws an {@link IllegalStateException} for them.
+     *
+     * @param urlCache the cache, or null for no cache
+     */
+    public static void cache(URLCache urlCache) {
+        cache = urlCache;
+    }
+
     public static URL from(String input) {
         return from(input, StandardCharsets.UTF_8, CodingErrorAction.REPORT, true, false);
     }
@@ -159,6 +172,11 @@ public class URL implements Comparable<URL> {
     public static URL from(String input,
                            Charset charset, CodingErrorAction codingErrorAction,
                            boolean resolve, boolean disableException) {
+        URLCache urlCache = cache;
+        if (urlCache != null && StandardCharsets.UTF_8.equals(charset) &&
+                codingErrorAction == CodingErrorAction.REPORT) {
+            return urlCache.get(input, resolve, disableException);
+        }
         try {
             return parser(charset, codingErrorAction).parse(input, resolve);
         } catch (URLSyntaxException | MalformedInputException | UnmappableCharacterException e) {
@@ -212,14 +230,17 @@ public class URL implements Comparable<URL> {
 
     public String relativeReference() {
         StringBuilder sb = new StringBuilder();
-        if (path != null) {
-            sb.append(path);
+        String encodedPath = getPath();
+        if (encodedPath != null) {
+            sb.append(encodedPath);
         }
-        if (query != null) {
-            sb.append(QUESTION_CHAR).append(query);
+        String encodedQuery = getQuery();
+        if (encodedQuery != null) {
+            sb.append(QUESTION_CHAR).append(encodedQuery);
         }
-        if (fragment != null) {
-            sb.append(NUMBER_SIGN_CHAR).append(fragment);
+        String encodedFragment = getFragment();
+        if (encodedFragment != null) {
+            sb.append(NUMBER_SIGN_CHAR).append(encodedFragment);
         }
         if (sb.length() == 0) {
             sb.append(SEPARATOR_CHAR);
@@ -244,7 +265,23 @@ public class URL implements Comparable<URL> {
         }
     }
 
+    /**
+     * Return the builder of this URL, for changing it.
+     *
+     * @return the builder
+     * @throws IllegalStateException if this URL is shared by a {@link URLCache}
+     */
     public URLBuilder mutator() {
+        if (shared) {
+            throw new IllegalStateException("URL is shared by a cache and can not be changed: " + this);
+        }
+        return builder;
+    }
+
+    /**
+     * Return the builder of this URL for reading, also if this URL is shared.
+     */
+    URLBuilder getBuilder() {
         return builder;
     }
 
@@ -254,7 +291,8 @@ public class URL implements Comparable<URL> {
 
     private String decode(String input) {
         try {
-            return builder.percentDecoder.decode(input);
+            // a shared URL is used by many threads, a percent decoder is not thread-safe
+            return (shared ? builder.newPercentDecoder() : builder.percentDecoder).decode(input);
         } catch (MalformedInputException | UnmappableCharacterException e) {
             throw new IllegalArgumentException(e);
         }
@@ -321,6 +359,9 @@ public class URL implements Comparable<URL> {
     }
 
     public String getHostInfo() {
+        if (hostinfo == null) {
+            hostinfo = encodeHostInfo();
+        }
         return hostinfo;
     }
 
@@ -337,6 +378,9 @@ public class URL implements Comparable<URL> {
      * @return the path
      */
     public String getPath() {
+        if (path == null) {
+            path = encodePath();
+        }
         return path;
     }
 
@@ -345,7 +389,7 @@ public class URL implements Comparable<URL> {
      * @return decoded path
      */
     public String getDecodedPath() {
-        return decode(path);
+        return decode(getPath());
     }
 
     public List<URLBuilder.PathSegment> getPathSegments() {
@@ -357,11 +401,14 @@ public class URL implements Comparable<URL> {
      * @return the query
      */
     public String getQuery() {
-        return query;
+        if (query == null) {
+            query = encodeQuery();
+        }
+        return query.isEmpty() ? null : query;
     }
 
     public String getDecodedQuery() {
-        return decode(query);
+        return decode(getQuery());
     }
 
     public Parameter getQueryParams() {
@@ -372,25 +419,31 @@ public class URL implements Comparable<URL> {
      * @return the fragment ('#foo{@literal &}bar') of the URL if it exists.
      */
     public String getFragment() {
-        return fragment;
+        if (fragment == null) {
+            fragment = encodeFragment();
+        }
+        return fragment.isEmpty() ? null : fragment;
     }
 
     public String getDecodedFragment() {
-        return decode(fragment);
+        return decode(getFragment());
     }
 
     /**
      * @return the opaque part of the URL if it exists.
      */
     public String getSchemeSpecificPart() {
-        return builder.schemeSpecificPart;
+        if (builder.schemeSpecificPartFromExternalForm) {
+            return toExternalForm().substring(builder.scheme.length() + 1);
+        }
+        return builder.schemeSpecificPart();
     }
 
     /**
      * @return true if URL is opaque.
      */
     public boolean isOpaque() {
-        return !isNullOrEmpty(builder.scheme) && !isNullOrEmpty(builder.schemeSpecificPart) && builder.host == null;
+        return !isNullOrEmpty(builder.scheme) && builder.hasSchemeSpecificPart() && builder.host == null;
     }
 
     /**
@@ -460,7 +513,7 @@ public class URL implements Comparable<URL> {
             sb.append(builder.scheme).append(COLON_CHAR);
         }
         if (isOpaque()) {
-            sb.append(builder.schemeSpecificPart);
+            sb.append(builder.schemeSpecificPart());
         } else {
             appendHostInfo(sb, false, true);
             appendPath(sb, false);
@@ -478,7 +531,7 @@ public class URL implements Comparable<URL> {
             sb.append(builder.scheme).append(COLON_CHAR);
         }
         if (isOpaque()) {
-            sb.append(builder.schemeSpecificPart);
+            sb.append(builder.schemeSpecificPart());
         } else {
             appendHostInfo(sb, true, true);
             appendPath(sb, true);
@@ -525,31 +578,11 @@ public class URL implements Comparable<URL> {
                         sb.append(builder.host);
                         break;
                     default:
-                        if (encoded) {
-                            try {
-                                String encodedHostName = regNameEncoder.encode(builder.host);
-                                validateHostnameCharacters(encodedHostName);
-                                sb.append(encodedHostName);
-                            } catch (CharacterCodingException e) {
-                                throw new IllegalArgumentException(e);
-                            }
-                        } else {
-                            sb.append(builder.host);
-                        }
+                        appendHost(sb, encoded);
                         break;
                 }
             } else {
-                if (encoded) {
-                    try {
-                        String encodedHostName = regNameEncoder.encode(builder.host);
-                        validateHostnameCharacters(encodedHostName);
-                        sb.append(encodedHostName);
-                    } catch (CharacterCodingException e) {
-                        throw new IllegalArgumentException(e);
-                    }
-                } else {
-                    sb.append(builder.host);
-                }
+                appendHost(sb, encoded);
             }
             if (scheme != null && builder.port != null && builder.port != scheme.getDefaultPort()) {
                 sb.append(COLON_CHAR);
@@ -560,9 +593,23 @@ public class URL implements Comparable<URL> {
         }
     }
 
-    private void validateHostnameCharacters(String hostname) {
+    private void appendHost(StringBuilder sb, boolean encoded) {
+        if (encoded) {
+            try {
+                int start = sb.length();
+                PercentEncoders.getRegNameEncoder(builder.charset).encode(builder.host, sb);
+                validateHostnameCharacters(sb, start);
+            } catch (CharacterCodingException e) {
+                throw new IllegalArgumentException(e);
+            }
+        } else {
+            sb.append(builder.host);
+        }
+    }
+
+    private void validateHostnameCharacters(CharSequence hostname, int start) {
         boolean valid;
-        for (int i = 0; i < hostname.length(); i++) {
+        for (int i = start; i < hostname.length(); i++) {
             char c = hostname.charAt(i);
             valid = ('a' <= c && c <= 'z') ||
                     ('A' <= c && c <= 'Z') ||
@@ -571,7 +618,7 @@ public class URL implements Comparable<URL> {
                     c == '!' || c == '$' || c == '&' || c == '\'' || c == '(' || c == ')' ||
                     c == '*' || c == '+' || c == ',' || c == ';' || c == '=' || c == '%';
             if (!valid) {
-                throw new IllegalArgumentException("invalid host name character in: " + hostname);
+                throw new IllegalArgumentException("invalid host name character in: " + builder.host);
             }
         }
     }
@@ -583,17 +630,19 @@ public class URL implements Comparable<URL> {
     }
 
     private void appendPath(StringBuilder sb, boolean encoded) {
+        PercentEncoder pathEncoder = PercentEncoders.getPathEncoder(builder.charset);
+        PercentEncoder matrixEncoder = PercentEncoders.getMatrixEncoder(builder.charset);
         Iterator<URLBuilder.PathSegment> it = builder.pathSegments.iterator();
         while (it.hasNext()) {
             URLBuilder.PathSegment pathSegment = it.next();
             try {
-                sb.append(encoded ? pathEncoder.encode(pathSegment.getSegment()) : pathSegment.getSegment());
+                append(sb, pathSegment.getSegment(), encoded ? pathEncoder : null);
                 for (Pair<String, String> matrixParam : pathSegment.getMatrixParams()) {
-                    sb.append(SEMICOLON_CHAR).append(encoded ?
-                            matrixEncoder.encode(matrixParam.getKey()) : matrixParam.getKey());
+                    sb.append(SEMICOLON_CHAR);
+                    append(sb, matrixParam.getKey(), encoded ? matrixEncoder : null);
                     if (matrixParam.getValue() != null) {
-                        sb.append(EQUAL_CHAR).append(encoded ?
-                                matrixEncoder.encode(matrixParam.getValue()) : matrixParam.getValue());
+                        sb.append(EQUAL_CHAR);
+                        append(sb, matrixParam.getValue(), encoded ? matrixEncoder : null);
                     }
                 }
             } catch (CharacterCodingException e) {
@@ -608,7 +657,7 @@ public class URL implements Comparable<URL> {
     private String encodeQuery() {
         StringBuilder sb = new StringBuilder();
         appendQuery(sb, true, false);
-        return sb.length() == 0 ? null : sb.toString();
+        return sb.toString();
     }
 
     private void appendQuery(StringBuilder sb, boolean encoded, boolean withQuestionMark) {
@@ -623,16 +672,19 @@ public class URL implements Comparable<URL> {
             if (withQuestionMark) {
                 sb.append(QUESTION_CHAR);
             }
+            PercentEncoder queryParamEncoder = PercentEncoders.getQueryParamEncoder(builder.charset);
             Iterator<Pair<String, Object>> it = builder.queryParams.iterator();
             while (it.hasNext()) {
                 Pair<String, Object> queryParam = it.next();
                 try {
-                    String k = encoded ? queryParamEncoder.encode(queryParam.getKey()) : queryParam.getKey();
-                    sb.append(k);
+                    append(sb, queryParam.getKey(), encoded ? queryParamEncoder : null);
                     if (queryParam.getValue() != null) {
-                        Object v = encoded && queryParam.getValue() instanceof CharSequence ?
-                                queryParamEncoder.encode((CharSequence) queryParam.getValue()) : queryParam.getValue();
-                        sb.append(EQUAL_CHAR).append(v);
+                        sb.append(EQUAL_CHAR);
+                        if (queryParam.getValue() instanceof CharSequence) {
+                            append(sb, (CharSequence) queryParam.getValue(), encoded ? queryParamEncoder : null);
+                        } else {
+                            sb.append(queryParam.getValue());
+                        }
                     }
                 } catch (CharacterCodingException e) {
                     throw new IllegalArgumentException(e);
@@ -647,7 +699,7 @@ public class URL implements Comparable<URL> {
     private String encodeFragment() {
         StringBuilder sb = new StringBuilder();
         appendFragment(sb, true, false);
-        return sb.length() == 0 ? null : sb.toString();
+        return sb.toString();
     }
 
     private void appendFragment(StringBuilder sb, boolean encoded, boolean withHashSymbol) {
@@ -657,7 +709,7 @@ public class URL implements Comparable<URL> {
             }
             if (encoded) {
                 try {
-                    sb.append(fragmentEncoder.encode(builder.fragment));
+                    PercentEncoders.getFragmentEncoder(builder.charset).encode(builder.fragment, sb);
                 } catch (CharacterCodingException e) {
                     throw new IllegalArgumentException(e);
                 }
@@ -667,6 +719,15 @@ public class URL implements Comparable<URL> {
         }
     }
 
+    private static void append(StringBuilder sb, CharSequence charSequence, PercentEncoder encoder)
+            throws CharacterCodingException {
+        if (encoder != null) {
+            encoder.encode(charSequence, sb);
+        } else {
+            sb.append(charSequence);
+        }
+    }
+
     /**
      * Returns true if the parameter string is neither null nor empty.
      */
@@ -681,14 +742,39 @@ public class URL implements Comparable<URL> {
         return Pair.of(k, v);
     }
 
+    /**
+     * The hash code is the hash code of the string representation, computed from the components
+     * without creating the string. It is cached after first use.
+     */
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        int h = hash;
+        if (h == 0) {
+            h = hash();
+            hash = h;
+        }
+        return h;
     }
 
+    /**
+     * Two URLs are equal if their string representations are equal. The characters of the string
+     * representations are compared as they are produced from the components, no string is created.
+     */
     @Override
     public boolean equals(Object other) {
-        return other instanceof URL && toString().equals(other.toString());
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof URL)) {
+            return false;
+        }
+        URL url = (URL) other;
+        int h = hash;
+        int otherHash = url.hash;
+        if (h != 0 && otherHash != 0 && h != otherHash) {
+            return false;
+        }
+        return compare(this, url, true) == 0;
     }
 
     @Override
@@ -696,9 +782,92 @@ public class URL implements Comparable<URL> {
         return toString(true);
     }
 
+    /**
+     * Compare the string representations of URLs, without creating them.
+     */
     @Override
     public int compareTo(URL o) {
-        return toString().compareTo(o.toString());
+        return compare(this, o, true);
+    }
+
+    private int hash() {
+        // the same as the hash code of the string representation
+        int h = 0;
+        FormChars formChars = new FormChars(this, true);
+        for (int c = formChars.next(); c >= 0; c = formChars.next()) {
+            h = 31 * h + c;
+        }
+        return h;
+    }
+
+    private static int compare(URL u1, URL u2, boolean withFragment) {
+        if (u1 == u2) {
+            return 0;
+        }
+        FormChars formChars1 = new FormChars(u1, withFragment);
+        FormChars formChars2 = new FormChars(u2, withFragment);
+        while (true) {
+            int c1 = formChars1.next();
+            int c2 = formChars2.next();
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+            if (c1 < 0) {
+                return 0;
+            }
+        }
+    }
+
+    private static String emptyToNull(String s) {
+        return isNullOrEmpty(s) ? null : s;
+    }
+
+    /**
+     * Return true if user info and port are part of the string representation.
+     */
+    private boolean hasAuthority() {
+        return builder.host != null && !builder.host.isEmpty();
+    }
+
+    /**
+     * The host as it appears in the string representation, null if there is no host.
+     */
+    private String hostComponent() {
+        if (builder.host == null || builder.host.isEmpty() || builder.protocolVersion != ProtocolVersion.IPV6) {
+            return builder.host;
+        }
+        String s = "localhost".equals(builder.host) ?
+                InetAddress.getLoopbackAddress().getHostAddress() : builder.host;
+        if (s != null && !s.equals(builder.hostAddress)) {
+            return s;
+        }
+        return builder.hostAddress != null ? LEFT_BRACKET_CHAR + builder.hostAddress + RIGHT_BRACKET_CHAR : "";
+    }
+
+    /**
+     * The port as it appears in the string representation, null if the port is omitted.
+     */
+    private Integer portComponent() {
+        if (scheme != null && builder.port != null && builder.port != scheme.getDefaultPort()) {
+            return builder.port;
+        }
+        return null;
+    }
+
+    /**
+     * The query as it appears in the string representation, null if there is no query. Query parameters
+     * are only serialized if no query string is given.
+     */
+    private String queryComponent() {
+        if (!isNullOrEmpty(builder.query)) {
+            return builder.query;
+        }
+        if (internalQuery == null) {
+            StringBuilder sb = new StringBuilder();
+            appendQuery(sb, false, false);
+            internalQuery = sb.toString();
+        }
+        return internalQuery.isEmpty() ? null : internalQuery;
     }
 
     @SuppressWarnings("serial")
@@ -706,7 +875,7 @@ public class URL implements Comparable<URL> {
 
         @Override
         public int compare(URL o1, URL o2) {
-            return o1.toString(true).compareTo(o2.toString(true));
+            return URL.compare(o1, o2, true);
         }
     }
 
@@ -715,7 +884,203 @@ public class URL implements Comparable<URL> {
 
         @Override
         public int compare(URL o1, URL o2) {
-            return o1.toString(false).compareTo(o2.toString(false));
+            return URL.compare(o1, o2, false);
+        }
+    }
+
+    /**
+     * The characters of the string representation of a URL, without creating a string. The tokens are the
+     * same as the ones written by {@link #toInternalForm(boolean)}.
+     */
+    private static final class FormChars {
+
+        private static final String EMPTY = "";
+
+        private static final String COLON = ":";
+
+        private static final String AT = "@";
+
+        private static final String SEPARATOR = "/";
+
+        private static final String QUESTION = "?";
+
+        private static final String NUMBER_SIGN = "#";
+
+        private static final int END = 13;
+
+        private final URL url;
+
+        private final boolean withFragment;
+
+        private PathChars pathChars;
+
+        private CharSequence token;
+
+        private int pos;
+
+        private int stage;
+
+        FormChars(URL url, boolean withFragment) {
+            this.url = url;
+            this.withFragment = withFragment;
+            this.token = EMPTY;
+        }
+
+        /**
+         * Return the next character, or -1 at the end.
+         */
+        int next() {
+            while (true) {
+                if (pathChars != null) {
+                    int c = pathChars.next();
+                    if (c >= 0) {
+                        return c;
+                    }
+                    pathChars = null;
+                }
+                if (pos < token.length()) {
+                    return token.charAt(pos++);
+                }
+                if (stage > END) {
+                    return -1;
+                }
+                token = nextToken();
+                if (token == null) {
+                    token = EMPTY;
+                }
+                pos = 0;
+            }
+        }
+
+        private CharSequence nextToken() {
+            URLBuilder builder = url.builder;
+            boolean hasAuthority = url.hasAuthority();
+            switch (stage++) {
+                case 0:
+                    return emptyToNull(builder.scheme);
+                case 1:
+                    return isNullOrEmpty(builder.scheme) ? null : COLON;
+                case 2:
+                    if (url.isOpaque()) {
+                        stage = END;
+                        return builder.schemeSpecificPart();
+                    }
+                    if (builder.host == null) {
+                        stage = 8;
+                        return null;
+                    }
+                    return url.scheme != null ? DOUBLE_SLASH : SEPARATOR;
+                case 3:
+                    return hasAuthority ? emptyToNull(builder.userInfo) : null;
+                case 4:
+                    return hasAuthority && !isNullOrEmpty(builder.userInfo) ? AT : null;
+                case 5:
+                    return hasAuthority ? url.hostComponent() : null;
+                case 6:
+                    return hasAuthority && url.portComponent() != null ? COLON : null;
+                case 7:
+                    Integer port = hasAuthority ? url.portComponent() : null;
+                    return port != null && port != -1 ? Integer.toString(port) : null;
+                case 8:
+                    pathChars = new PathChars(builder.pathSegments);
+                    return null;
+                case 9:
+                    return url.queryComponent() != null ? QUESTION : null;
+                case 10:
+                    return url.queryComponent();
+                case 11:
+                    return withFragment && !isNullOrEmpty(builder.fragment) ? NUMBER_SIGN : null;
+                case 12:
+                    return withFragment ? emptyToNull(builder.fragment) : null;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * The characters of the path as they appear in the string representation, without creating a string.
+     * Decoded segments may contain slashes, so segments can not be compared one by one.
+     */
+    private static final class PathChars {
+
+        private static final String EMPTY = "";
+
+        private static final String SEMICOLON = ";";
+
+        private static final String EQUAL = "=";
+
+        private static final String SEPARATOR = "/";
+
+        private final List<URLBuilder.PathSegment> pathSegments;
+
+        private int segmentIndex;
+
+        private int paramIndex;
+
+        private int stage;
+
+        private CharSequence token;
+
+        private int pos;
+
+        PathChars(List<URLBuilder.PathSegment> pathSegments) {
+            this.pathSegments = pathSegments;
+            this.paramIndex = -1;
+            this.token = EMPTY;
+        }
+
+        /**
+         * Return the next character, or -1 at the end of the path.
+         */
+        int next() {
+            while (pos >= token.length()) {
+                token = nextToken();
+                if (token == null) {
+                    token = EMPTY;
+                    return -1;
+                }
+                pos = 0;
+            }
+            return token.charAt(pos++);
+        }
+
+        private CharSequence nextToken() {
+            if (segmentIndex >= pathSegments.size()) {
+                return null;
+            }
+            URLBuilder.PathSegment pathSegment = pathSegments.get(segmentIndex);
+            if (paramIndex < 0) {
+                paramIndex = 0;
+                return pathSegment.getSegment();
+            }
+            List<Pair<String, String>> matrixParams = pathSegment.getMatrixParams();
+            while (paramIndex < matrixParams.size()) {
+                Pair<String, String> matrixParam = matrixParams.get(paramIndex);
+                switch (stage) {
+                    case 0:
+                        stage = 1;
+                        return SEMICOLON;
+                    case 1:
+                        stage = 2;
+                        return String.valueOf(matrixParam.getKey());
+                    case 2:
+                        if (matrixParam.getValue() != null) {
+                            stage = 3;
+                            return EQUAL;
+                        }
+                        break;
+                    default:
+                        stage = 0;
+                        paramIndex++;
+                        return matrixParam.getValue();
+                }
+                stage = 0;
+                paramIndex++;
+            }
+            segmentIndex++;
+            paramIndex = -1;
+            return segmentIndex < pathSegments.size() ? SEPARATOR : null;
         }
     }
 }
@@ -16,6 +16,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import org.xbib.datastructures.common.Pair;
+import org.xbib.net.resolver.HostResolver;
+import org.xbib.net.resolver.HostResolvers;
 
 /**
  * The URL builder class is required for building an URL. It uses fluent API methods
@@ -27,10 +29,6 @@ public class URLBuilder {
 
     static final PathSegment EMPTY_SEGMENT = new PathSegment(EMPTY);
 
-    PercentEncoder regNameEncoder;
-
-    PercentEncoder percentEncoder;
-
     PercentDecoder percentDecoder;
 
     ParameterBuilder queryParams;
@@ -45,6 +43,18 @@ public class URLBuilder {
 
     String schemeSpecificPart;
 
+    /**
+     * The parser input the scheme specific part is taken from when it is requested.
+     */
+    String schemeSpecificPartInput;
+
+    int schemeSpecificPartOffset;
+
+    /**
+     * True if the scheme specific part is the external form of the URL after the scheme, see {@link URLCodec}.
+     */
+    boolean schemeSpecificPartFromExternalForm;
+
     String userInfo;
 
     String host;
@@ -61,11 +71,42 @@ public class URLBuilder {
 
     boolean fatalResolveErrorsEnabled;
 
+    HostResolver hostResolver;
+
     URLBuilder() {
         this.pathSegments = new ArrayList<>();
         charset(StandardCharsets.UTF_8, CodingErrorAction.REPLACE);
     }
 
+    /**
+     * Create a copy of a builder that shares its path segments and query parameters,
+     * for URLs that are never changed, see {@link URLCache}. The copy has its own percent decoder.
+     *
+     * @param builder the builder
+     */
+    URLBuilder(URLBuilder builder) {
+        this.queryParams = builder.queryParams;
+        this.pathSegments = builder.pathSegments;
+        this.charset = builder.charset;
+        this.codingErrorAction = builder.codingErrorAction;
+        // the decoder of the other builder may be in use by another thread
+        this.percentDecoder = newPercentDecoder();
+        this.scheme = builder.scheme;
+        this.schemeSpecificPart = builder.schemeSpecificPart;
+        this.schemeSpecificPartInput = builder.schemeSpecificPartInput;
+        this.schemeSpecificPartOffset = builder.schemeSpecificPartOffset;
+        this.schemeSpecificPartFromExternalForm = builder.schemeSpecificPartFromExternalForm;
+        this.userInfo = builder.userInfo;
+        this.host = builder.host;
+        this.hostAddress = builder.hostAddress;
+        this.protocolVersion = builder.protocolVersion;
+        this.port = builder.port;
+        this.query = builder.query;
+        this.fragment = builder.fragment;
+        this.fatalResolveErrorsEnabled = builder.fatalResolveErrorsEnabled;
+        this.hostResolver = builder.hostResolver;
+    }
+
     /**
      * Set the character set of the URL. Default is UTF-8.
      *
@@ -76,14 +117,22 @@ public class URLBuilder {
     public URLBuilder charset(Charset charset, CodingErrorAction codingErrorAction) {
         this.charset = charset;
         this.codingErrorAction = codingErrorAction;
-        this.percentEncoder = PercentEncoders.getQueryEncoder(charset);
-        this.regNameEncoder = PercentEncoders.getRegNameEncoder(charset);
+        this.percentDecoder = newPercentDecoder();
+        this.queryParams = Parameter.builder().domain(Parameter.Domain.QUERY);
+        return this;
+    }
+
+    /**
+     * Create a percent decoder for the character set of this builder. A percent decoder is not thread-safe,
+     * so URLs that are shared between threads decode with a new one.
+     *
+     * @return the percent decoder
+     */
+    PercentDecoder newPercentDecoder() {
         CharsetDecoder charsetDecoder = charset.newDecoder()
                 .onMalformedInput(codingErrorAction)
                 .onUnmappableCharacter(codingErrorAction);
-        this.percentDecoder = new PercentDecoder(charsetDecoder);
-        this.queryParams = Parameter.builder().domain(Parameter.Domain.QUERY);
-        return this;
+        return new PercentDecoder(charsetDecoder);
     }
 
     public URLBuilder scheme(String scheme) {
@@ -100,9 +149,40 @@ public class URLBuilder {
 
     public URLBuilder schemeSpecificPart(String schemeSpecificPart) {
         this.schemeSpecificPart = schemeSpecificPart;
+        this.schemeSpecificPartInput = null;
+        this.schemeSpecificPartFromExternalForm = false;
         return this;
     }
 
+    /**
+     * Set the scheme specific part as the remainder of the parser input, starting at an offset.
+     * The substring is only created when the scheme specific part is requested.
+     *
+     * @param input the parser input
+     * @param offset the offset where the scheme specific part begins
+     * @return this builder
+     */
+    URLBuilder schemeSpecificPart(String input, int offset) {
+        this.schemeSpecificPart = null;
+        this.schemeSpecificPartInput = input;
+        this.schemeSpecificPartOffset = offset;
+        this.schemeSpecificPartFromExternalForm = false;
+        return this;
+    }
+
+    String schemeSpecificPart() {
+        if (schemeSpecificPart == null && schemeSpecificPartInput != null) {
+            schemeSpecificPart = schemeSpecificPartInput.substring(schemeSpecificPartOffset);
+        }
+        return schemeSpecificPart;
+    }
+
+    boolean hasSchemeSpecificPart() {
+        return schemeSpecificPartInput != null ?
+                schemeSpecificPartOffset < schemeSpecificPartInput.length() :
+                !URL.isNullOrEmpty(schemeSpecificPart);
+    }
+
     public URLBuilder userInfo(String userInfo) {
         this.userInfo = userInfo;
         return this;
@@ -111,6 +191,7 @@ public class URLBuilder {
     public URLBuilder userInfo(String user, String pass) {
         try {
             // allow colons in usernames and passwords by percent-encoding them here
+            PercentEncoder regNameEncoder = PercentEncoders.getRegNameEncoder(charset);
             this.userInfo = regNameEncoder.encode(user) + URL.COLON_CHAR + regNameEncoder.encode(pass);
         } catch (MalformedInputException | UnmappableCharacterException e) {
             throw new IllegalArgumentException(e);
@@ -143,6 +224,17 @@ public class URLBuilder {
         return this;
     }
 
+    /**
+     * Set the host resolver for {@link #resolveFromHost(String)}. Default is {@link HostResolvers#getDefault()}.
+     *
+     * @param hostResolver the host resolver
+     * @return this builder
+     */
+    public URLBuilder hostResolver(HostResolver hostResolver) {
+        this.hostResolver = hostResolver;
+        return this;
+    }
+
     public URLBuilder resolveFromHost(String hostname) {
         if (hostname == null) {
             return this;
@@ -152,7 +244,8 @@ public class URLBuilder {
             return this;
         }
         try {
-            InetAddress inetAddress = InetAddress.getByName(hostname);
+            HostResolver resolver = hostResolver != null ? hostResolver : HostResolvers.getDefault();
+            InetAddress inetAddress = resolver.resolve(hostname);
             hostAddress = inetAddress.getHostAddress();
             host(inetAddress.getHostName(), inetAddress instanceof Inet6Address ?
                     ProtocolVersion.IPV6 : inetAddress instanceof Inet4Address ?
@@ -187,7 +280,9 @@ public class URLBuilder {
 
     public URLBuilder path(String path) {
         try {
-            URL.parser(charset, codingErrorAction).parsePathWithQueryAndFragment(this, path);
+            if (path != null) {
+                URL.parser(charset, codingErrorAction).parsePathWithQueryAndFragment(this, path, 0, path.length());
+            }
         } catch (CharacterCodingException e) {
             throw new IllegalArgumentException(e);
         }
@@ -0,0 +1,135 @@
+package org.xbib.net;
+
+import org.xbib.net.util.SegmentedCache;
+
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnmappableCharacterException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent, size-bounded cache of parsed {@link URL} instances, keyed by the input string.
+ *
+ * The URLs are held in a {@link SegmentedCache}. When it is full, the least recently used entry is evicted.
+ * With {@link Eviction#TINY_LFU}, a new entry is only admitted if it was requested more often than
+ * the entry it would evict. This keeps one-time URLs from flushing frequently requested URLs out of the cache.
+ *
+ * Only URLs parsed without host name resolution are cached. {@link #from(String)} resolves the host name
+ * of the cached URL on every call, so the address is as fresh as the one of the host resolver and its
+ * time-to-live cache.
+ *
+ * A cache can be passed to {@link URL#cache(URLCache)} so that {@link URL#from(String)} and
+ * {@link URL#create(String)} use it. The URLs returned by a cache are shared, {@link URL#mutator()}
+ * throws an {@link IllegalStateException} for them.
+ */
+public final class URLCache {
+
+    /**
+     * The eviction policies.
+     */
+    public enum Eviction {
+        /**
+         * Always admit new entries and evict the least recently used entry.
+         */
+        LRU,
+        /**
+         * Admit new entries only if their estimated frequency exceeds the one of the least recently used entry.
+         */
+        TINY_LFU
+    }
+
+    private final SegmentedCache<String, URL> cache;
+
+    private final LongAdder hitCount;
+
+    private final LongAdder missCount;
+
+    private final LongAdder evictionCount;
+
+    public URLCache(int maximumSize) {
+        this(maximumSize, Eviction.LRU);
+    }
+
+    public URLCache(int maximumSize, Eviction eviction) {
+        this.cache = new SegmentedCache<>(maximumSize, eviction == Eviction.TINY_LFU);
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+        this.evictionCount = new LongAdder();
+    }
+
+    /**
+     * Get a URL from the cache, or parse it, and resolve the host name. See {@link URL#from(String)}.
+     *
+     * @param input the input
+     * @return the URL
+     */
+    public URL from(String input) {
+        return get(input, true, false);
+    }
+
+    /**
+     * Get a URL from the cache, or parse it. See {@link URL#create(String)}.
+     *
+     * @param input the input
+     * @return the URL
+     */
+    public URL create(String input) {
+        return get(input, false, false);
+    }
+
+    URL get(String input, boolean resolve, boolean disableException) {
+        if (URL.isNullOrEmpty(input)) {
+            return URL.NULL_URL;
+        }
+        URL url = cache.get(input);
+        if (url != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+            URL parsed;
+            try {
+                parsed = URL.parser(StandardCharsets.UTF_8, CodingErrorAction.REPORT).parse(input, false);
+            } catch (URLSyntaxException | MalformedInputException | UnmappableCharacterException e) {
+                if (disableException) {
+                    return null;
+                } else {
+                    throw new IllegalArgumentException(e);
+                }
+            }
+            if (parsed == URL.NULL_URL) {
+                // blank input, callers compare with the null URL by identity
+                return parsed;
+            }
+            url = new URL(parsed.getBuilder(), true);
+            if (cache.put(input, url)) {
+                evictionCount.increment();
+            }
+        }
+        if (resolve && url.getBuilder().host != null) {
+            URLBuilder builder = new URLBuilder(url.getBuilder());
+            url = new URL(builder.resolveFromHost(builder.host), true);
+        }
+        return url;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+}
@@ -0,0 +1,434 @@
+package org.xbib.net;
+
+import org.xbib.datastructures.common.Pair;
+import org.xbib.net.scheme.Scheme;
+import org.xbib.net.scheme.SchemeRegistry;
+import org.xbib.net.util.CharUtils;
+
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.UnmappableCharacterException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A configurable canonicalization of URLs, so that URLs that address the same resource compare equal.
+ *
+ * A canonical URL is rebuilt from the decoded components of a URL, so percent-encoding is normalized
+ * by the encoders of the URL: unreserved characters are not encoded, and reserved characters are
+ * encoded with upper case hexadecimal digits. A parsed query is the exception, its parameters keep
+ * their encoding, because a decoded {@code +} can not be told from an encoded one. Only percent-encoded
+ * unreserved characters are decoded and hexadecimal digits are written in upper case, as in RFC 3986,
+ * section 6.2.2.2. The other steps are selected by the {@link Builder}:
+ * case folding of scheme and host, removal of the default port of the scheme, path normalization
+ * by {@link PathNormalizer}, removal of query parameters, sorting of query parameters, and removal
+ * of the fragment.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public final class URLCanonicalizer {
+
+    /**
+     * Names of query parameters that are commonly used to track visitors.
+     */
+    public static final Set<String> TRACKING_PARAMS = Set.of("gclid", "dclid", "fbclid", "msclkid", "yclid",
+            "igshid", "mc_cid", "mc_eid", "_ga", "_gl");
+
+    /**
+     * Prefixes of names of query parameters that are commonly used to track visitors.
+     */
+    public static final Set<String> TRACKING_PARAM_PREFIXES = Set.of("utm_");
+
+    private static final URLCanonicalizer DEFAULT = builder().build();
+
+    private static final Comparator<Pair<String, Object>> PARAM_ORDER = (p1, p2) -> {
+        int c = compare(p1.getKey(), p2.getKey());
+        return c != 0 ? c : compare(toString(p1.getValue()), toString(p2.getValue()));
+    };
+
+    private static final Comparator<QueryParam> QUERY_PARAM_ORDER = (p1, p2) -> {
+        int c = compare(p1.name(), p2.name());
+        c = c != 0 ? c : compare(p1.value(), p2.value());
+        return c != 0 ? c : p1.encoded().compareTo(p2.encoded());
+    };
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final boolean foldCase;
+
+    private final boolean removeDefaultPort;
+
+    private final boolean normalizePath;
+
+    private final boolean sortQueryParams;
+
+    private final Set<String> removedParams;
+
+    private final String[] removedParamPrefixes;
+
+    private final boolean removeFragment;
+
+    private URLCanonicalizer(Builder builder) {
+        this.foldCase = builder.foldCase;
+        this.removeDefaultPort = builder.removeDefaultPort;
+        this.normalizePath = builder.normalizePath;
+        this.sortQueryParams = builder.sortQueryParams;
+        this.removedParams = Set.copyOf(builder.removedParams);
+        this.removedParamPrefixes = builder.removedParamPrefixes.toArray(new String[0]);
+        this.removeFragment = builder.removeFragment;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Return a canonicalizer with the default configuration: case folding, default port removal,
+     * path normalization and fragment removal.
+     *
+     * @return the canonicalizer
+     */
+    public static URLCanonicalizer getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Canonicalize a URL.
+     *
+     * @param url the URL
+     * @return the canonical URL
+     */
+    public URL canonicalize(URL url) {
+        URLBuilder source = url.getBuilder();
+        URLBuilder builder = new URLBuilder();
+        if (source.charset != null && !source.charset.equals(builder.charset)) {
+            builder.charset(source.charset, source.codingErrorAction);
+        }
+        builder.scheme = foldCase && source.scheme != null ? source.scheme.toLowerCase(Locale.ROOT) : source.scheme;
+        if (!removeFragment) {
+            builder.fragment = source.fragment;
+        }
+        if (url.isOpaque()) {
+            builder.schemeSpecificPart = source.schemeSpecificPart();
+            return new URL(builder);
+        }
+        builder.userInfo = source.userInfo;
+        builder.host = foldCase && source.host != null ? source.host.toLowerCase(Locale.ROOT) : source.host;
+        builder.hostAddress = source.hostAddress;
+        builder.protocolVersion = source.protocolVersion;
+        builder.port = source.port;
+        if (removeDefaultPort && builder.port != null && builder.scheme != null) {
+            Scheme scheme = SchemeRegistry.getInstance().getScheme(builder.scheme);
+            if (builder.port == scheme.getDefaultPort()) {
+                builder.port = null;
+            }
+        }
+        String path = url.getPath();
+        if (normalizePath && builder.host != null) {
+            path = PathNormalizer.normalize(path);
+        }
+        if (!URL.isNullOrEmpty(path)) {
+            builder.path(path);
+        }
+        if (source.queryParams.isEmpty()) {
+            builder.query = source.query;
+        } else if (source.query != null) {
+            canonicalizeQuery(source, builder);
+        } else {
+            List<Pair<String, Object>> params = new ArrayList<>();
+            for (Iterator<Pair<String, Object>> it = source.queryParams.iterator(); it.hasNext(); ) {
+                Pair<String, Object> pair = it.next();
+                if (!isRemoved(pair.getKey())) {
+                    params.add(pair);
+                }
+            }
+            if (sortQueryParams) {
+                params.sort(PARAM_ORDER);
+            }
+            for (Pair<String, Object> pair : params) {
+                builder.queryParams.add(pair);
+            }
+        }
+        return new URL(builder);
+    }
+
+    /**
+     * Canonicalize a parsed query. The parameters are taken from the query string, not from the decoded
+     * query parameters, so that encoded delimiters such as {@code %2B} and {@code %26} stay distinct
+     * from {@code +} and {@code &}. Only the percent-encoding of the parameters is normalized.
+     */
+    private void canonicalizeQuery(URLBuilder source, URLBuilder builder) {
+        String query = source.query;
+        // the URL may be shared between threads, so its percent decoder is not used
+        PercentDecoder percentDecoder = source.newPercentDecoder();
+        List<QueryParam> params = new ArrayList<>();
+        int pos = 0;
+        while (pos <= query.length()) {
+            int end = query.indexOf(URL.AMPERSAND_CHAR, pos);
+            if (end < 0) {
+                end = query.length();
+            }
+            int eq = query.indexOf(URL.EQUAL_CHAR, pos);
+            int keyEnd = eq >= 0 && eq < end ? eq : end;
+            if (keyEnd > pos) {
+                try {
+                    String name = percentDecoder.decode(query, pos, keyEnd);
+                    if (!isRemoved(name)) {
+                        String value = keyEnd < end ? percentDecoder.decode(query, keyEnd + 1, end) : null;
+                        params.add(new QueryParam(name, value, normalizePercentEncoding(query, pos, end)));
+                    }
+                } catch (MalformedInputException | UnmappableCharacterException e) {
+                    throw new IllegalArgumentException(e);
+                }
+            }
+            pos = end + 1;
+        }
+        if (sortQueryParams) {
+            params.sort(QUERY_PARAM_ORDER);
+        }
+        StringBuilder sb = new StringBuilder(query.length());
+        for (QueryParam param : params) {
+            if (!sb.isEmpty()) {
+                sb.append(URL.AMPERSAND_CHAR);
+            }
+            sb.append(param.encoded());
+            builder.queryParam(param.name(), param.value());
+        }
+        builder.query = sb.isEmpty() ? null : sb.toString();
+    }
+
+    /**
+     * Decode percent-encoded unreserved characters, and write the hexadecimal digits of the other
+     * percent-encoded octets in upper case, see RFC 3986, section 6.2.2.2.
+     */
+    private static String normalizePercentEncoding(String s, int start, int end) {
+        int i = s.indexOf('%', start);
+        if (i < 0 || i >= end) {
+            return s.substring(start, end);
+        }
+        StringBuilder sb = new StringBuilder(end - start);
+        sb.append(s, start, i);
+        while (i < end) {
+            char c = s.charAt(i);
+            int high = c == '%' && i + 2 < end ? Character.digit(s.charAt(i + 1), 16) : -1;
+            int low = high >= 0 ? Character.digit(s.charAt(i + 2), 16) : -1;
+            if (low >= 0) {
+                int octet = (high << 4) | low;
+                if (CharUtils.isUnreserved(octet)) {
+                    sb.append((char) octet);
+                } else {
+                    sb.append('%').append(HEX_DIGITS[high]).append(HEX_DIGITS[low]);
+                }
+                i += 3;
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Return the external form of the canonical URL.
+     *
+     * @param url the URL
+     * @return the canonical external form
+     */
+    public String toCanonicalForm(URL url) {
+        return canonicalize(url).toExternalForm();
+    }
+
+    /**
+     * Return a 64-bit hash of the external form of the canonical URL.
+     *
+     * @param url the URL
+     * @return the hash
+     */
+    public long hash(URL url) {
+        return hash(toCanonicalForm(url));
+    }
+
+    /**
+     * A 64-bit hash of a character sequence: FNV-1a over the characters, followed by the finalizer
+     * of MurmurHash3, so that all bits of the hash depend on all characters.
+     *
+     * @param s the character sequence
+     * @return the hash
+     */
+    public static long hash(CharSequence s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private boolean isRemoved(String name) {
+        if (name == null) {
+            return false;
+        }
+        if (removedParams.contains(name)) {
+            return true;
+        }
+        for (String prefix : removedParamPrefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int compare(String s1, String s2) {
+        if (Objects.equals(s1, s2)) {
+            return 0;
+        }
+        if (s1 == null) {
+            return -1;
+        }
+        if (s2 == null) {
+            return 1;
+        }
+        return s1.compareTo(s2);
+    }
+
+    private static String toString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * A query parameter with its decoded name and value, and its normalized encoded form.
+     */
+    private record QueryParam(String name, String value, String encoded) {
+    }
+
+    /**
+     * A builder for URL canonicalizers.
+     */
+    public static final class Builder {
+
+        private boolean foldCase;
+
+        private boolean removeDefaultPort;
+
+        private boolean normalizePath;
+
+        private boolean sortQueryParams;
+
+        private final List<String> removedParams;
+
+        private final List<String> removedParamPrefixes;
+
+        private boolean removeFragment;
+
+        private Builder() {
+            this.foldCase = true;
+            this.removeDefaultPort = true;
+            this.normalizePath = true;
+            this.removedParams = new ArrayList<>();
+            this.removedParamPrefixes = new ArrayList<>();
+            this.removeFragment = true;
+        }
+
+        /**
+         * Fold scheme and host to lower case. Default is true.
+         *
+         * @param foldCase true if case should be folded
+         * @return this builder
+         */
+        public Builder foldCase(boolean foldCase) {
+            this.foldCase = foldCase;
+            return this;
+        }
+
+        /**
+         * Remove a port that is the default port of the scheme. Default is true.
+         *
+         * @param removeDefaultPort true if the default port should be removed
+         * @return this builder
+         */
+        public Builder removeDefaultPort(boolean removeDefaultPort) {
+            this.removeDefaultPort = removeDefaultPort;
+            return this;
+        }
+
+        /**
+         * Normalize the path of URLs with a host. Default is true.
+         *
+         * @param normalizePath true if the path should be normalized
+         * @return this builder
+         * @see PathNormalizer
+         */
+        public Builder normalizePath(boolean normalizePath) {
+            this.normalizePath = normalizePath;
+            return this;
+        }
+
+        /**
+         * Sort query parameters by name and value. Default is false.
+         *
+         * @param sortQueryParams true if query parameters should be sorted
+         * @return this builder
+         */
+        public Builder sortQueryParams(boolean sortQueryParams) {
+            this.sortQueryParams = sortQueryParams;
+            return this;
+        }
+
+        /**
+         * Remove query parameters by name.
+         *
+         * @param names the names of the parameters
+         * @return this builder
+         */
+        public Builder removeQueryParams(String... names) {
+            removedParams.addAll(List.of(names));
+            return this;
+        }
+
+        /**
+         * Remove query parameters whose name starts with a prefix.
+         *
+         * @param prefixes the prefixes of the names of the parameters
+         * @return this builder
+         */
+        public Builder removeQueryParamPrefixes(String... prefixes) {
+            removedParamPrefixes.addAll(List.of(prefixes));
+            return this;
+        }
+
+        /**
+         * Remove the query parameters in {@link #TRACKING_PARAMS} and {@link #TRACKING_PARAM_PREFIXES}.
+         *
+         * @return this builder
+         */
+        public Builder removeTrackingParams() {
+            removedParams.addAll(TRACKING_PARAMS);
+            removedParamPrefixes.addAll(TRACKING_PARAM_PREFIXES);
+            return this;
+        }
+
+        /**
+         * Remove the fragment. Default is true.
+         *
+         * @param removeFragment true if the fragment should be removed
+         * @return this builder
+         */
+        public Builder removeFragment(boolean removeFragment) {
+            this.removeFragment = removeFragment;
+            return this;
+        }
+
+        public URLCanonicalizer build() {
+            return new URLCanonicalizer(this);
+        }
+    }
+}
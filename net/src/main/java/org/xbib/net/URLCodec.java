@@ -0,0 +1,385 @@
+package org.xbib.net;
+
+import org.xbib.datastructures.common.Pair;
+import org.xbib.net.buffer.DataBuffer;
+import org.xbib.net.scheme.SchemeRegistry;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A compact binary encoding of {@link URL} instances.
+ *
+ * The components of a URL are written as they are held by its builder, so reading a URL back copies
+ * the components and does not parse or validate anything. The scheme specific part of a hierarchical URL
+ * is not written if it can be derived from the external form of the URL. The built-in schemes are written
+ * as their id in the {@link SchemeRegistry}, integers are written as variable-length integers of seven bits
+ * per byte, and strings are written as their UTF-8 encoded length and bytes. Path segments with their matrix
+ * parameters and query parameters are written already split.
+ *
+ * The encoding starts with a version byte. It is meant for storing and exchanging large numbers of URLs,
+ * for example in a crawler frontier, and is not a replacement for the string form of a URL.
+ */
+public final class URLCodec {
+
+    private static final int VERSION = 1;
+
+    private static final CodingErrorAction[] CODING_ERROR_ACTIONS = {
+            CodingErrorAction.REPLACE, CodingErrorAction.REPORT, CodingErrorAction.IGNORE
+    };
+
+    private static final ProtocolVersion[] PROTOCOL_VERSIONS = ProtocolVersion.values();
+
+    private URLCodec() {
+    }
+
+    /**
+     * Encode a URL.
+     *
+     * @param url the URL
+     * @return the encoded URL
+     */
+    public static byte[] encode(URL url) {
+        Output output = new Output();
+        write(url, output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Encode a URL into a byte buffer, starting at its position. The position is advanced.
+     *
+     * @param url the URL
+     * @param buffer the byte buffer
+     * @throws java.nio.BufferOverflowException if the buffer has not enough space left
+     */
+    public static void encode(URL url, ByteBuffer buffer) {
+        Output output = new Output();
+        write(url, output);
+        buffer.put(output.bytes, 0, output.size);
+    }
+
+    /**
+     * Encode a URL into a data buffer. The buffer grows if needed.
+     *
+     * @param url the URL
+     * @param buffer the data buffer
+     */
+    public static void encode(URL url, DataBuffer buffer) {
+        Output output = new Output();
+        write(url, output);
+        buffer.write(output.bytes, 0, output.size);
+    }
+
+    /**
+     * Decode a URL.
+     *
+     * @param bytes the encoded URL
+     * @return the URL
+     * @throws IllegalArgumentException if the bytes are not an encoded URL
+     */
+    public static URL decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Decode a URL from a byte buffer, starting at its position. The position is advanced behind the URL.
+     *
+     * @param buffer the byte buffer
+     * @return the URL
+     * @throws IllegalArgumentException if the buffer does not contain an encoded URL
+     */
+    public static URL decode(ByteBuffer buffer) {
+        try {
+            return read(new Input(buffer));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated URL", e);
+        }
+    }
+
+    /**
+     * Decode a URL from a data buffer, starting at its read position. The read position is advanced behind the URL.
+     *
+     * @param buffer the data buffer
+     * @return the URL
+     * @throws IllegalArgumentException if the buffer does not contain an encoded URL
+     */
+    public static URL decode(DataBuffer buffer) {
+        ByteBuffer byteBuffer = buffer.asByteBuffer(buffer.readPosition(), buffer.readableByteCount());
+        URL url = decode(byteBuffer);
+        buffer.readPosition(buffer.readPosition() + byteBuffer.position());
+        return url;
+    }
+
+    private static void write(URL url, Output output) {
+        URLBuilder builder = url.getBuilder();
+        output.writeByte(VERSION);
+        String scheme = builder.scheme;
+        if (scheme == null) {
+            output.writeVarInt(0);
+        } else {
+            int id = SchemeRegistry.getInstance().getId(scheme);
+            if (id >= 0) {
+                output.writeVarInt(id + 2);
+            } else {
+                output.writeVarInt(1);
+                output.writeString(scheme);
+            }
+        }
+        String schemeSpecificPart = url.getSchemeSpecificPart();
+        if (schemeSpecificPart == null) {
+            output.writeByte(0);
+        } else if (builder.host != null && isExternalFormRemainder(url, scheme, schemeSpecificPart)) {
+            // not opaque, so the scheme specific part can be derived when it is requested
+            output.writeByte(1);
+        } else {
+            output.writeByte(2);
+            output.writeString(schemeSpecificPart);
+        }
+        output.writeString(builder.userInfo);
+        output.writeString(builder.host);
+        output.writeString(builder.hostAddress);
+        output.writeByte(builder.protocolVersion != null ? builder.protocolVersion.ordinal() + 1 : 0);
+        Integer port = builder.port;
+        if (port == null) {
+            output.writeVarInt(0);
+        } else {
+            output.writeVarInt(1);
+            // zigzag, so that -1 is small
+            output.writeVarInt((port << 1) ^ (port >> 31));
+        }
+        output.writeVarInt(builder.pathSegments.size());
+        for (URLBuilder.PathSegment pathSegment : builder.pathSegments) {
+            output.writeString(pathSegment.getSegment());
+            List<Pair<String, String>> params = pathSegment.getMatrixParams();
+            output.writeVarInt(params.size());
+            for (Pair<String, String> param : params) {
+                output.writeString(param.getKey());
+                output.writeString(param.getValue());
+            }
+        }
+        output.writeString(builder.query);
+        int count = 0;
+        for (Iterator<Pair<String, Object>> it = builder.queryParams.iterator(); it.hasNext(); it.next()) {
+            count++;
+        }
+        output.writeVarInt(count);
+        for (Iterator<Pair<String, Object>> it = builder.queryParams.iterator(); it.hasNext(); ) {
+            Pair<String, Object> pair = it.next();
+            output.writeString(pair.getKey());
+            output.writeString(pair.getValue() != null ? pair.getValue().toString() : null);
+        }
+        output.writeString(builder.fragment);
+        Charset charset = builder.charset;
+        output.writeString(charset == null || charset.equals(StandardCharsets.UTF_8) ? null : charset.name());
+        output.writeByte(Math.max(0, Arrays.asList(CODING_ERROR_ACTIONS).indexOf(builder.codingErrorAction)));
+    }
+
+    /**
+     * Check if the scheme specific part is the external form after the scheme and the colon.
+     */
+    private static boolean isExternalFormRemainder(URL url, String scheme, String schemeSpecificPart) {
+        if (URL.isNullOrEmpty(scheme)) {
+            return false;
+        }
+        String externalForm = url.toExternalForm();
+        int offset = scheme.length() + 1;
+        return externalForm.length() == offset + schemeSpecificPart.length() &&
+                externalForm.startsWith(schemeSpecificPart, offset);
+    }
+
+    private static URL read(Input input) {
+        int version = input.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported version " + version);
+        }
+        URLBuilder builder = new URLBuilder();
+        int schemeId = input.readVarInt();
+        if (schemeId == 1) {
+            builder.scheme = input.readString();
+        } else if (schemeId > 1) {
+            builder.scheme = SchemeRegistry.getInstance().getName(schemeId - 2);
+        }
+        int schemeSpecificPart = input.readByte();
+        if (schemeSpecificPart == 1) {
+            // the scheme specific part is derived from the external form after the scheme
+            if (builder.scheme == null) {
+                throw new IllegalArgumentException("scheme specific part without scheme");
+            }
+            builder.schemeSpecificPartFromExternalForm = true;
+        } else if (schemeSpecificPart == 2) {
+            builder.schemeSpecificPart = input.readString();
+        } else if (schemeSpecificPart != 0) {
+            throw new IllegalArgumentException("malformed scheme specific part");
+        }
+        builder.userInfo = input.readString();
+        builder.host = input.readString();
+        builder.hostAddress = input.readString();
+        int protocolVersion = input.readByte();
+        if (protocolVersion > PROTOCOL_VERSIONS.length) {
+            throw new IllegalArgumentException("unknown protocol version " + protocolVersion);
+        }
+        builder.protocolVersion = protocolVersion > 0 ? PROTOCOL_VERSIONS[protocolVersion - 1] : null;
+        if (input.readVarInt() != 0) {
+            int port = input.readVarInt();
+            builder.port = (port >>> 1) ^ -(port & 1);
+        }
+        int segments = input.readVarInt();
+        for (int i = 0; i < segments; i++) {
+            URLBuilder.PathSegment pathSegment = new URLBuilder.PathSegment(input.readString());
+            int params = input.readVarInt();
+            for (int j = 0; j < params; j++) {
+                pathSegment.getMatrixParams().add(Pair.of(input.readString(), input.readString()));
+            }
+            builder.pathSegments.add(pathSegment);
+        }
+        builder.query = input.readString();
+        int queryParams = input.readVarInt();
+        List<Pair<String, Object>> pairs = new ArrayList<>(Math.min(queryParams, 64));
+        for (int i = 0; i < queryParams; i++) {
+            pairs.add(Pair.of(input.readString(), input.readString()));
+        }
+        builder.fragment = input.readString();
+        String charset = input.readString();
+        int codingErrorAction = input.readByte();
+        if (codingErrorAction >= CODING_ERROR_ACTIONS.length) {
+            throw new IllegalArgumentException("unknown coding error action " + codingErrorAction);
+        }
+        if (charset != null || codingErrorAction != 0) {
+            builder.charset(charset != null ? Charset.forName(charset) : StandardCharsets.UTF_8,
+                    CODING_ERROR_ACTIONS[codingErrorAction]);
+        }
+        for (Pair<String, Object> pair : pairs) {
+            builder.queryParams.add(pair);
+        }
+        return new URL(builder);
+    }
+
+    /**
+     * A growable byte array.
+     */
+    private static final class Output {
+
+        private byte[] bytes = new byte[128];
+
+        private int size;
+
+        void writeByte(int b) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void writeVarInt(int value) {
+            ensureCapacity(5);
+            int v = value;
+            while ((v & ~0x7f) != 0) {
+                bytes[size++] = (byte) ((v & 0x7f) | 0x80);
+                v >>>= 7;
+            }
+            bytes[size++] = (byte) v;
+        }
+
+        /**
+         * Write a string as its UTF-8 length plus one, followed by the UTF-8 bytes. Null is written as 0.
+         */
+        void writeString(String s) {
+            if (s == null) {
+                writeVarInt(0);
+                return;
+            }
+            int length = s.length();
+            boolean ascii = true;
+            for (int i = 0; i < length; i++) {
+                if (s.charAt(i) >= 0x80) {
+                    ascii = false;
+                    break;
+                }
+            }
+            if (ascii) {
+                writeVarInt(length + 1);
+                ensureCapacity(length);
+                for (int i = 0; i < length; i++) {
+                    bytes[size++] = (byte) s.charAt(i);
+                }
+            } else {
+                byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(b.length + 1);
+                ensureCapacity(b.length);
+                System.arraycopy(b, 0, bytes, size, b.length);
+                size += b.length;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensureCapacity(int n) {
+            if (size + n > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + n));
+            }
+        }
+    }
+
+    /**
+     * Reads from a byte buffer, with an array of a heap buffer read directly.
+     */
+    private static final class Input {
+
+        private final ByteBuffer buffer;
+
+        private byte[] scratch;
+
+        Input(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int readByte() {
+            return buffer.get() & 0xff;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = buffer.get();
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("malformed variable-length integer");
+        }
+
+        String readString() {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                if (length == -1) {
+                    return null;
+                }
+                throw new IllegalArgumentException("malformed string length");
+            }
+            if (length > buffer.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            String s;
+            if (buffer.hasArray()) {
+                s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                        StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            } else {
+                if (scratch == null || scratch.length < length) {
+                    scratch = new byte[Math.max(length, 64)];
+                }
+                buffer.get(scratch, 0, length);
+                s = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+            return s;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.xbib.net;
+
+import org.xbib.net.util.BloomFilter;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * A concurrent filter for duplicate URLs.
+ *
+ * URLs are canonicalized by a {@link URLCanonicalizer}, and the 64-bit hash of the canonical form is added
+ * to a {@link BloomFilter}. No URL is kept, so the memory of the filter depends on the expected number of
+ * URLs and the false positive probability only. A false positive reports a new URL as a duplicate.
+ * A duplicate is reported as new only if it is added by two threads at the same time, because the bits
+ * of its hash are set one after the other, see {@link BloomFilter#add(long)}.
+ *
+ * The filter is a predicate that accepts new URLs, so it can filter parallel streams:
+ * {@code urls.parallel().filter(filter)}.
+ */
+public final class URLDuplicateFilter implements Predicate<URL> {
+
+    private final URLCanonicalizer canonicalizer;
+
+    private final BloomFilter bloomFilter;
+
+    private final LongAdder count;
+
+    private final LongAdder duplicateCount;
+
+    /**
+     * Create a duplicate filter with the default canonicalizer.
+     *
+     * @param expectedInsertions the expected number of URLs
+     * @param falsePositiveProbability the probability that a new URL is reported as a duplicate
+     */
+    public URLDuplicateFilter(long expectedInsertions, double falsePositiveProbability) {
+        this(URLCanonicalizer.getDefault(), expectedInsertions, falsePositiveProbability);
+    }
+
+    /**
+     * Create a duplicate filter.
+     *
+     * @param canonicalizer the canonicalizer
+     * @param expectedInsertions the expected number of URLs
+     * @param falsePositiveProbability the probability that a new URL is reported as a duplicate
+     */
+    public URLDuplicateFilter(URLCanonicalizer canonicalizer, long expectedInsertions, double falsePositiveProbability) {
+        this.canonicalizer = canonicalizer;
+        this.bloomFilter = new BloomFilter(expectedInsertions, falsePositiveProbability);
+        this.count = new LongAdder();
+        this.duplicateCount = new LongAdder();
+    }
+
+    /**
+     * Add a URL.
+     *
+     * @param url the URL
+     * @return true if the URL is new or added concurrently by another thread, false if it is probably a duplicate
+     */
+    public boolean add(URL url) {
+        count.increment();
+        if (bloomFilter.add(canonicalizer.hash(url))) {
+            return true;
+        }
+        duplicateCount.increment();
+        return false;
+    }
+
+    /**
+     * Check if a URL was probably added, without adding it.
+     *
+     * @param url the URL
+     * @return true if the URL was probably added
+     */
+    public boolean mightContain(URL url) {
+        return bloomFilter.mightContain(canonicalizer.hash(url));
+    }
+
+    /**
+     * Add a URL and accept it if it is new.
+     *
+     * @param url the URL
+     * @return true if the URL is new
+     */
+    @Override
+    public boolean test(URL url) {
+        return add(url);
+    }
+
+    /**
+     * Filter the duplicates from a stream of URLs. Parallel streams are processed in parallel.
+     *
+     * @param urls the URLs
+     * @return the new URLs
+     */
+    public Stream<URL> distinct(Stream<URL> urls) {
+        return urls.filter(this);
+    }
+
+    /**
+     * @return the number of URLs added
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return the number of URLs reported as duplicates
+     */
+    public long getDuplicateCount() {
+        return duplicateCount.sum();
+    }
+}
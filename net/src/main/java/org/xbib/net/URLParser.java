@@ -1,26 +1,56 @@
 package org.xbib.net;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.MalformedInputException;
 import java.nio.charset.UnmappableCharacterException;
-import org.xbib.datastructures.common.Pair;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.xbib.net.buffer.DataBuffer;
+import org.xbib.net.resolver.HostResolver;
 import org.xbib.net.scheme.Scheme;
 import org.xbib.net.scheme.SchemeRegistry;
 
 /**
  * A URL parser class.
+ *
+ * The parser scans the input in a single pass and records the component boundaries as offsets
+ * into the input. Strings are only created for the (decoded) components, never for intermediate
+ * slices of the input.
+ *
+ * A parser creates a new {@link URLBuilder} for each input, so it can be reused, and after configuration,
+ * it can be shared between threads.
  */
 public class URLParser {
 
     private static final String EMPTY = "";
 
-    private final URLBuilder builder;
+    private final Charset charset;
+
+    private final CodingErrorAction codingErrorAction;
+
+    private HostResolver hostResolver;
 
     URLParser(Charset charset, CodingErrorAction codingErrorAction) {
-        builder = new URLBuilder();
-        builder.charset(charset, codingErrorAction);
+        this.charset = charset;
+        this.codingErrorAction = codingErrorAction;
+    }
+
+    /**
+     * Set the host resolver for parsing with host name resolution.
+     *
+     * @param hostResolver the host resolver
+     * @return this parser
+     */
+    public URLParser hostResolver(HostResolver hostResolver) {
+        this.hostResolver = hostResolver;
+        return this;
     }
 
     public URL parse(String input)
@@ -33,88 +63,228 @@ public class URLParser {
         if (URL.isNullOrEmpty(input)) {
             return URL.NULL_URL;
         }
-        if (input.indexOf('\n') >= 0) {
+        return parse((CharSequence) input, resolve);
+    }
+
+    /**
+     * Parse a URL from the US-ASCII bytes between position and limit of a byte buffer, for example the request
+     * target of a HTTP request line. The bytes are scanned directly and percent-decoded into the charset of this
+     * parser, no string is created for the whole input. Bytes outside of US-ASCII are taken as ISO-8859-1.
+     * The position of the byte buffer is not changed, and the URL does not keep a reference to the byte buffer.
+     * Host names are not resolved.
+     *
+     * @param byteBuffer the byte buffer
+     * @return the URL
+     * @throws URLSyntaxException if the URL is not valid
+     * @throws MalformedInputException if percent-decoding fails
+     * @throws UnmappableCharacterException if percent-decoding fails
+     */
+    public URL parse(ByteBuffer byteBuffer)
+            throws URLSyntaxException, MalformedInputException, UnmappableCharacterException {
+        if (byteBuffer == null || !byteBuffer.hasRemaining()) {
             return URL.NULL_URL;
         }
-        if (input.indexOf('\t') >= 0) {
+        return parse(new ByteBufferCharSequence(byteBuffer), false);
+    }
+
+    /**
+     * Parse a URL from the US-ASCII bytes of a data buffer.
+     *
+     * @param dataBuffer the data buffer
+     * @param index the index of the first byte
+     * @param length the number of bytes
+     * @return the URL
+     * @throws URLSyntaxException if the URL is not valid
+     * @throws MalformedInputException if percent-decoding fails
+     * @throws UnmappableCharacterException if percent-decoding fails
+     * @see #parse(ByteBuffer)
+     */
+    public URL parse(DataBuffer dataBuffer, int index, int length)
+            throws URLSyntaxException, MalformedInputException, UnmappableCharacterException {
+        if (dataBuffer == null || length == 0) {
             return URL.NULL_URL;
         }
-        String remaining = parseScheme(builder, input);
-        if (remaining != null) {
-            remaining = remaining.replace('\\', URL.SEPARATOR_CHAR);
-            builder.schemeSpecificPart(remaining);
-            if (remaining.startsWith(URL.DOUBLE_SLASH)) {
-                Scheme scheme = SchemeRegistry.getInstance().getScheme(builder.scheme);
-                if (builder.scheme == null || scheme.getDefaultPort() == -1) {
-                    builder.host(EMPTY);
-                } else {
-                    remaining = remaining.substring(2);
-                    int i = remaining.indexOf(URL.SEPARATOR_CHAR);
-                    int j = remaining.indexOf(URL.QUESTION_CHAR);
-                    int pos = i >= 0 && j >= 0 ? Math.min(i, j) : i >= 0 ? i : j >= 0 ? j : -1;
-                    String host = (pos >= 0 ? remaining.substring(0, pos) : remaining);
-                    parseHostAndPort(builder, parseUserInfo(builder, host), resolve);
-                    if (builder.host == null) {
-                        return URL.NULL_URL;
+        return parse(dataBuffer.asByteBuffer(index, length));
+    }
+
+    /**
+     * Parse a stream of URL strings, for example a list of URLs or the lines of a file from
+     * {@link java.nio.file.Files#lines(java.nio.file.Path)}. Host names are not resolved. Inputs that are
+     * empty or not valid URLs are skipped. The returned stream keeps the characteristics of the input stream,
+     * so it is processed in parallel if the input stream is parallel. Because a parser creates a new builder
+     * for each input, this parser is shared by all workers.
+     *
+     * @param input the URL strings
+     * @return the stream of URLs
+     */
+    public Stream<URL> parseAll(Stream<String> input) {
+        return input.map(this::parseOrNull).filter(Objects::nonNull);
+    }
+
+    /**
+     * Parse, normalize, and remove duplicate URLs. For parallel processing, pass a parallel stream.
+     * If the order of the URLs does not matter, pass an {@link Stream#unordered() unordered} stream, which
+     * makes removing duplicates in parallel considerably cheaper.
+     *
+     * @param input the URL strings
+     * @return the stream of normalized distinct URLs
+     * @see #parseAll(Stream)
+     */
+    public Stream<URL> normalizeAll(Stream<String> input) {
+        return parseAll(input).map(URL::normalize).distinct();
+    }
+
+    /**
+     * Parse, normalize, and remove duplicate URLs of a collection in parallel.
+     *
+     * @param input the URL strings
+     * @param ordered true if the result should be in the order of the input, false if any order is acceptable
+     * @return the list of normalized distinct URLs
+     */
+    public List<URL> normalizeAll(Collection<String> input, boolean ordered) {
+        Stream<String> stream = input.parallelStream();
+        return normalizeAll(ordered ? stream : stream.unordered()).toList();
+    }
+
+    /**
+     * Create a spliterator of URLs from a spliterator of URL strings. Splitting is delegated
+     * to the input, so the spliterator can be used for parallel streams.
+     *
+     * @param input the spliterator of URL strings
+     * @return the spliterator of URLs
+     * @see #parseAll(Stream)
+     */
+    public Spliterator<URL> spliterator(Spliterator<String> input) {
+        return new URLSpliterator(this, input);
+    }
+
+    private URL parseOrNull(String input) {
+        try {
+            URL url = parse(input, false);
+            return url != URL.NULL_URL ? url : null;
+        } catch (URLSyntaxException | MalformedInputException | UnmappableCharacterException |
+                 IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private URL parse(CharSequence input, boolean resolve)
+            throws URLSyntaxException, MalformedInputException, UnmappableCharacterException {
+        URLBuilder builder = new URLBuilder();
+        builder.charset(charset, codingErrorAction);
+        builder.hostResolver(hostResolver);
+        int length = input.length();
+        if (indexOf(input, '\n', 0, length) >= 0) {
+            return URL.NULL_URL;
+        }
+        if (indexOf(input, '\t', 0, length) >= 0) {
+            return URL.NULL_URL;
+        }
+        // only copy the input if there are backslashes to replace
+        CharSequence s = indexOf(input, '\\', 0, length) >= 0 ?
+                input.toString().replace('\\', URL.SEPARATOR_CHAR) : input;
+        int start = parseScheme(builder, s);
+        boolean authority = start + 1 < length &&
+                s.charAt(start) == URL.SEPARATOR_CHAR && s.charAt(start + 1) == URL.SEPARATOR_CHAR;
+        if (s instanceof String) {
+            builder.schemeSpecificPart((String) s, start);
+        } else if (builder.scheme != null) {
+            // never keep a reference to a buffer
+            builder.schemeSpecificPart(substring(s, start, length));
+        }
+        if (authority) {
+            Scheme scheme = SchemeRegistry.getInstance().getScheme(builder.scheme);
+            if (builder.scheme == null || scheme.getDefaultPort() == -1) {
+                builder.host(EMPTY);
+            } else {
+                int hostStart = start + 2;
+                int hostEnd = hostStart;
+                while (hostEnd < length) {
+                    char ch = s.charAt(hostEnd);
+                    if (ch == URL.SEPARATOR_CHAR || ch == URL.QUESTION_CHAR) {
+                        break;
                     }
-                    remaining = pos >= 0 ? remaining.substring(pos) : EMPTY;
+                    hostEnd++;
                 }
-            }
-            if (!URL.isNullOrEmpty(remaining)) {
-                try {
-                    parsePathWithQueryAndFragment(builder, remaining);
-                } catch (CharacterCodingException e) {
-                    throw new URLSyntaxException(e);
+                hostStart = parseUserInfo(builder, s, hostStart, hostEnd);
+                parseHostAndPort(builder, s, hostStart, hostEnd, resolve);
+                if (builder.host == null) {
+                    return URL.NULL_URL;
                 }
+                start = hostEnd;
+            }
+        }
+        if (start < length) {
+            try {
+                parsePathWithQueryAndFragment(builder, s, start, length);
+            } catch (CharacterCodingException e) {
+                throw new URLSyntaxException(e);
             }
         }
         return builder.build();
     }
 
-    String parseScheme(URLBuilder builder, String input) {
-        // there may be colons in query params, so
-        // check if input contains query (question mark) and save query for later return
-        int pos = input.indexOf(URL.QUESTION_CHAR);
-        String string = pos > 0 ? input.substring(0, pos) : input;
-        String query = pos > 0 ? input.substring(pos) : "";
-        Pair<String, String> p = URL.indexOf(URL.COLON_CHAR, string);
-        if (p.getValue() == null) {
-            return input;
+    /**
+     * Parse the scheme.
+     *
+     * @param builder the builder
+     * @param input the input
+     * @return the offset of the first character after the scheme delimiter, or 0 if there is no scheme
+     */
+    int parseScheme(URLBuilder builder, CharSequence input) {
+        // there may be colons in query params, so only look for a colon in front of a query (question mark)
+        int pos = indexOf(input, URL.QUESTION_CHAR, 0, input.length());
+        int end = pos > 0 ? pos : input.length();
+        int i = indexOf(input, URL.COLON_CHAR, 0, end);
+        if (i < 0) {
+            return 0;
         }
-        if (!URL.isNullOrEmpty(p.getKey())) {
-            builder.scheme(p.getKey());
+        if (i > 0) {
+            builder.scheme(substring(input, 0, i));
         }
-        return p.getValue() + query;
+        return i + 1;
     }
 
-    String parseUserInfo(URLBuilder builder, String input)
+    /**
+     * Parse the user info of an authority.
+     *
+     * @param builder the builder
+     * @param input the input
+     * @param start the start of the authority
+     * @param end the end of the authority
+     * @return the offset where the host begins
+     * @throws MalformedInputException if user info decoding fails
+     * @throws UnmappableCharacterException if user info decoding fails
+     */
+    int parseUserInfo(URLBuilder builder, CharSequence input, int start, int end)
             throws MalformedInputException, UnmappableCharacterException {
-        String remaining = input;
-        int i = input.lastIndexOf(URL.AT_CHAR);
-        if (i > 0) {
-            remaining = input.substring(i + 1);
-            String userInfo = input.substring(0, i);
-            builder.userInfo(builder.percentDecoder.decode(userInfo));
+        int i = lastIndexOf(input, URL.AT_CHAR, start, end);
+        if (i > start) {
+            builder.userInfo(builder.percentDecoder.decode(input, start, i));
+            return i + 1;
         }
-        return remaining;
+        return start;
     }
 
-    void parseHostAndPort(URLBuilder builder, String rawHost, boolean resolve)
+    void parseHostAndPort(URLBuilder builder, CharSequence input, int start, int end, boolean resolve)
             throws URLSyntaxException {
-        String host = rawHost;
-        if (host.indexOf(URL.LEFT_BRACKET_CHAR) == 0) {
-            int i = host.lastIndexOf(URL.RIGHT_BRACKET_CHAR);
+        int hostStart = start;
+        int hostEnd = end;
+        if (start < end && input.charAt(start) == URL.LEFT_BRACKET_CHAR) {
+            int i = lastIndexOf(input, URL.RIGHT_BRACKET_CHAR, start, end);
             if (i >= 0) {
-                builder.port(parsePort(host.substring(i + 1)));
-                host = host.substring(1, i);
+                builder.port(parsePort(input, i + 1, end));
+                hostStart = start + 1;
+                hostEnd = i;
             }
         } else {
-            int i = host.indexOf(URL.COLON_CHAR);
+            int i = indexOf(input, URL.COLON_CHAR, start, end);
             if (i >= 0) {
-                builder.port(parsePort(host.substring(i)));
-                host = host.substring(0, i);
+                builder.port(parsePort(input, i, end));
+                hostEnd = i;
             }
         }
+        String host = substring(input, hostStart, hostEnd);
         if (resolve) {
             builder.resolveFromHost(host);
         } else {
@@ -122,108 +292,194 @@ public class URLParser {
         }
     }
 
-    Integer parsePort(String portStr) throws URLSyntaxException {
-        if (portStr == null || portStr.isEmpty()) {
+    Integer parsePort(CharSequence input, int start, int end) throws URLSyntaxException {
+        if (start >= end) {
             return null;
         }
-        int i = portStr.indexOf(URL.COLON_CHAR);
+        int from = start;
+        int i = indexOf(input, URL.COLON_CHAR, start, end);
         if (i >= 0) {
-            portStr = portStr.substring(i + 1);
-            if (portStr.isEmpty()) {
+            from = i + 1;
+            if (from == end) {
                 return -1;
             }
         }
         try {
-            int port = Integer.parseInt(portStr);
+            int port = Integer.parseInt(input, from, end, 10);
             if (port > 0 && port < 65536) {
                 return port;
             } else {
                 throw new URLSyntaxException("invalid port");
             }
         } catch (NumberFormatException e) {
-            throw new URLSyntaxException("no numeric port: " + portStr);
+            throw new URLSyntaxException("no numeric port: " + substring(input, from, end));
         }
     }
 
-    void parsePathWithQueryAndFragment(URLBuilder builder, String inputStr)
+    void parsePathWithQueryAndFragment(URLBuilder builder, CharSequence input, int start, int end)
             throws MalformedInputException, UnmappableCharacterException {
-        String input = inputStr;
-        if (input == null) {
-            return;
-        }
-        int i = input.lastIndexOf(URL.NUMBER_SIGN_CHAR);
+        int to = end;
+        int i = lastIndexOf(input, URL.NUMBER_SIGN_CHAR, start, to);
         if (i >= 0) {
-            builder.fragment(builder.percentDecoder.decode(input.substring(i + 1)));
-            input = input.substring(0, i);
+            builder.fragment(builder.percentDecoder.decode(input, i + 1, to));
+            to = i;
         }
-        i = input.indexOf(URL.QUESTION_CHAR);
+        i = indexOf(input, URL.QUESTION_CHAR, start, to);
         if (i >= 0) {
-            parseQuery(builder, input.substring(i + 1));
-            input = input.substring(0, i);
+            parseQuery(builder, input, i + 1, to);
+            to = i;
         }
-        if (input.length() > 0 && input.charAt(0) == URL.SEPARATOR_CHAR) {
+        if (start < to && input.charAt(start) == URL.SEPARATOR_CHAR) {
             builder.pathSegment(EMPTY);
         }
-        String s = input;
-        while (s != null) {
-            Pair<String, String> pair = URL.indexOf(URL.SEPARATOR_CHAR, s);
-            String elem = pair.getKey();
-            if (!elem.isEmpty()) {
-                if (elem.charAt(0) == URL.SEMICOLON_CHAR) {
+        int pos = start;
+        while (pos <= to) {
+            int elemEnd = indexOf(input, URL.SEPARATOR_CHAR, pos, to);
+            if (elemEnd < 0) {
+                elemEnd = to;
+            }
+            if (elemEnd > pos) {
+                if (input.charAt(pos) == URL.SEMICOLON_CHAR) {
                     builder.pathSegment(EMPTY);
-                    String t = elem.substring(1);
-                    while (t != null) {
-                        Pair<String, String> pathWithMatrixElem = URL.indexOf(URL.SEMICOLON_CHAR, t);
-                        String matrixElem = pathWithMatrixElem.getKey();
-                        Pair<String, String> p = URL.indexOf(URL.EQUAL_CHAR, matrixElem);
-                        builder.matrixParam(builder.percentDecoder.decode(p.getKey()),
-                                builder.percentDecoder.decode(p.getValue()));
-                        t = pathWithMatrixElem.getValue();
-                    }
+                    parseMatrixParams(builder, input, pos + 1, elemEnd);
                 } else {
-                    String t = elem;
-                    i = 0;
-                    while (t != null) {
-                        Pair<String, String> pathWithMatrixElem = URL.indexOf(URL.SEMICOLON_CHAR, t);
-                        String segment = pathWithMatrixElem.getKey();
-                        if (i == 0) {
-                            builder.pathSegment(builder.percentDecoder.decode(segment));
-                        } else {
-                            Pair<String, String> p = URL.indexOf(URL.EQUAL_CHAR, segment);
-                            builder.matrixParam(builder.percentDecoder.decode(p.getKey()),
-                                    builder.percentDecoder.decode(p.getValue()));
-                        }
-                        t = pathWithMatrixElem.getValue();
-                        i++;
+                    int segmentEnd = indexOf(input, URL.SEMICOLON_CHAR, pos, elemEnd);
+                    if (segmentEnd < 0) {
+                        builder.pathSegment(builder.percentDecoder.decode(input, pos, elemEnd));
+                    } else {
+                        builder.pathSegment(builder.percentDecoder.decode(input, pos, segmentEnd));
+                        parseMatrixParams(builder, input, segmentEnd + 1, elemEnd);
                     }
                 }
             }
-            s = pair.getValue();
+            pos = elemEnd + 1;
         }
-        if (input.endsWith("/")) {
+        if (start < to && input.charAt(to - 1) == URL.SEPARATOR_CHAR) {
             builder.pathSegment(EMPTY);
         }
     }
 
-    void parseQuery(URLBuilder builder, String query)
+    /**
+     * Parse semicolon-separated matrix parameters. Every element between semicolons, even an empty one,
+     * is added as a matrix parameter.
+     */
+    private void parseMatrixParams(URLBuilder builder, CharSequence input, int start, int end)
             throws MalformedInputException, UnmappableCharacterException {
-        if (query == null) {
-            return;
-        }
-        String s = query;
-        while (s != null) {
-            Pair<String, String> p = URL.indexOf(URL.AMPERSAND_CHAR, s);
-            Pair<String, String> param = URL.indexOf(URL.EQUAL_CHAR, p.getKey());
-            if (!URL.isNullOrEmpty(param.getKey())) {
-                builder.queryParam(builder.percentDecoder.decode(param.getKey()),
-                        builder.percentDecoder.decode(param.getValue()));
+        int pos = start;
+        while (pos <= end) {
+            int paramEnd = indexOf(input, URL.SEMICOLON_CHAR, pos, end);
+            if (paramEnd < 0) {
+                paramEnd = end;
+            }
+            int eq = indexOf(input, URL.EQUAL_CHAR, pos, paramEnd);
+            if (eq < 0) {
+                builder.matrixParam(builder.percentDecoder.decode(input, pos, paramEnd), null);
+            } else {
+                builder.matrixParam(builder.percentDecoder.decode(input, pos, eq),
+                        builder.percentDecoder.decode(input, eq + 1, paramEnd));
             }
-            s = p.getValue();
+            pos = paramEnd + 1;
+        }
+    }
+
+    void parseQuery(URLBuilder builder, CharSequence input, int start, int end)
+            throws MalformedInputException, UnmappableCharacterException {
+        int pos = start;
+        while (pos <= end) {
+            int paramEnd = indexOf(input, URL.AMPERSAND_CHAR, pos, end);
+            if (paramEnd < 0) {
+                paramEnd = end;
+            }
+            int eq = indexOf(input, URL.EQUAL_CHAR, pos, paramEnd);
+            int keyEnd = eq >= 0 ? eq : paramEnd;
+            if (keyEnd > pos) {
+                builder.queryParam(builder.percentDecoder.decode(input, pos, keyEnd),
+                        eq >= 0 ? builder.percentDecoder.decode(input, eq + 1, paramEnd) : null);
+            }
+            pos = paramEnd + 1;
         }
         if (builder.queryParams.isEmpty()) {
-            builder.query(builder.percentDecoder.decode(query));
+            builder.query(builder.percentDecoder.decode(input, start, end));
         } else {
-            builder.query(query);
+            builder.query(substring(input, start, end));
+        }
+    }
+
+    private static int indexOf(CharSequence input, char ch, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (input.charAt(i) == ch) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(CharSequence input, char ch, int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (input.charAt(i) == ch) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String substring(CharSequence input, int start, int end) {
+        if (input instanceof String) {
+            return ((String) input).substring(start, end);
+        }
+        if (input instanceof ByteBufferCharSequence) {
+            return ((ByteBufferCharSequence) input).toString(start, end);
+        }
+        return input.subSequence(start, end).toString();
+    }
+
+    private static final class URLSpliterator implements Spliterator<URL> {
+
+        private final URLParser parser;
+
+        private final Spliterator<String> input;
+
+        URLSpliterator(URLParser parser, Spliterator<String> input) {
+            this.parser = parser;
+            this.input = input;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super URL> action) {
+            URL[] url = new URL[1];
+            while (input.tryAdvance(s -> url[0] = parser.parseOrNull(s))) {
+                if (url[0] != null) {
+                    action.accept(url[0]);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super URL> action) {
+            input.forEachRemaining(s -> {
+                URL url = parser.parseOrNull(s);
+                if (url != null) {
+                    action.accept(url);
+                }
+            });
+        }
+
+        @Override
+        public Spliterator<URL> trySplit() {
+            Spliterator<String> split = input.trySplit();
+            return split != null ? new URLSpliterator(parser, split) : null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return input.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return (input.characteristics() & (ORDERED | IMMUTABLE | CONCURRENT)) | NONNULL;
         }
     }
 }
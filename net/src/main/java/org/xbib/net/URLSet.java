@@ -0,0 +1,553 @@
+package org.xbib.net;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * A compact, immutable, sorted set of URLs.
+ *
+ * URLs are stored as the UTF-8 bytes of their external form, sorted by unsigned byte order, which is the order
+ * of their code points. The sorted keys are front coded: keys are grouped into blocks of {@link #BLOCK_SIZE},
+ * the first key of a block is stored in full, and every other key as the length of the prefix it shares with
+ * the previous key and the remaining bytes. URLs of the same host share long prefixes, so they take only a few
+ * bytes each. The blocks are stored in large byte arrays, and a lookup is a binary search over the first keys
+ * of the blocks followed by a scan of one block.
+ *
+ * Every URL has an index, its rank in the sorted order. The index can be used to keep values for the URLs
+ * in arrays beside the set, so the set also serves as the key set of a compact map.
+ *
+ * Instances are created by a {@link Builder} and can be shared between threads.
+ */
+public final class URLSet implements Iterable<String> {
+
+    /**
+     * The number of keys in a block.
+     */
+    public static final int BLOCK_SIZE = 16;
+
+    private static final int PAGE_SIZE = 1 << 20;
+
+    private final byte[][] pages;
+
+    /**
+     * The positions of the blocks, as the page index in the upper and the offset in the lower 32 bits.
+     */
+    private final long[] blocks;
+
+    private final int size;
+
+    private final int maxKeyLength;
+
+    private final long byteCount;
+
+    private URLSet(byte[][] pages, long[] blocks, int size, int maxKeyLength, long byteCount) {
+        this.pages = pages;
+        this.blocks = blocks;
+        this.size = size;
+        this.maxKeyLength = maxKeyLength;
+        this.byteCount = byteCount;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the number of URLs in this set
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of bytes used by the keys and the block index
+     */
+    public long sizeInBytes() {
+        return byteCount + 8L * blocks.length;
+    }
+
+    public boolean contains(URL url) {
+        return indexOf(url) >= 0;
+    }
+
+    public boolean contains(CharSequence url) {
+        return indexOf(url) >= 0;
+    }
+
+    /**
+     * Find the index of a URL.
+     *
+     * @param url the URL
+     * @return the index, or -1 if the URL is not in this set
+     */
+    public int indexOf(URL url) {
+        return indexOf(url.toExternalForm());
+    }
+
+    /**
+     * Find the index of a URL, given by its external form.
+     *
+     * @param url the external form of the URL
+     * @return the index, or -1 if the URL is not in this set
+     */
+    public int indexOf(CharSequence url) {
+        byte[] probe = url.toString().getBytes(StandardCharsets.UTF_8);
+        if (probe.length > maxKeyLength) {
+            return -1;
+        }
+        int block = findBlock(probe);
+        if (block < 0) {
+            return -1;
+        }
+        Cursor cursor = new Cursor(block * BLOCK_SIZE);
+        for (int i = 0; i < BLOCK_SIZE && cursor.next(); i++) {
+            int c = cursor.compareTo(probe);
+            if (c == 0) {
+                return cursor.index;
+            }
+            if (c > 0) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return the external form of the URL at an index.
+     *
+     * @param index the index
+     * @return the external form of the URL
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        Cursor cursor = new Cursor(index);
+        cursor.next();
+        return cursor.toString();
+    }
+
+    /**
+     * Create the URL at an index. The host name is not resolved.
+     *
+     * @param index the index
+     * @return the URL
+     */
+    public URL getURL(int index) {
+        return URL.create(get(index));
+    }
+
+    /**
+     * Iterate over the external forms of the URLs in sorted order.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new KeyIterator(new Cursor(0), null, false);
+    }
+
+    /**
+     * Iterate in sorted order over the external forms of the URLs that start with a prefix.
+     *
+     * @param prefix the prefix
+     * @return the iterator
+     */
+    public Iterator<String> iterator(CharSequence prefix) {
+        byte[] probe = prefix.toString().getBytes(StandardCharsets.UTF_8);
+        return new KeyIterator(new Cursor(lowerBound(probe)), probe, false);
+    }
+
+    /**
+     * Iterate in sorted order over the external forms of the URLs with a scheme and a host, with any port.
+     * URLs with user info are not included.
+     *
+     * @param scheme the scheme, in lower case
+     * @param host the host, in lower case, IPv6 addresses in brackets
+     * @return the iterator
+     */
+    public Iterator<String> hostIterator(String scheme, String host) {
+        byte[] probe = (scheme + "://" + host).getBytes(StandardCharsets.UTF_8);
+        return new KeyIterator(new Cursor(lowerBound(probe)), probe, true);
+    }
+
+    /**
+     * Find the last block whose first key is not greater than the probe.
+     */
+    private int findBlock(byte[] probe) {
+        int low = 0;
+        int high = blocks.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long position = blocks[mid];
+            byte[] page = pages[(int) (position >>> 32)];
+            int offset = (int) position;
+            // the first key of a block has an empty shared prefix
+            offset++;
+            int length = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = page[offset++];
+                length |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            if (Arrays.compareUnsigned(page, offset, offset + length, probe, 0, probe.length) <= 0) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Find the index of the first key that is not less than the probe.
+     */
+    private int lowerBound(byte[] probe) {
+        int block = Math.max(0, findBlock(probe));
+        Cursor cursor = new Cursor(block * BLOCK_SIZE);
+        while (cursor.next()) {
+            if (cursor.compareTo(probe) >= 0) {
+                return cursor.index;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * A position in the sorted keys. The current key is decoded into a byte array.
+     */
+    private final class Cursor {
+
+        private final byte[] key;
+
+        private int length;
+
+        private int index;
+
+        private byte[] page;
+
+        private int offset;
+
+        /**
+         * Create a cursor so that {@link #next()} moves to an index.
+         */
+        Cursor(int index) {
+            this.key = new byte[maxKeyLength];
+            this.index = index - index % BLOCK_SIZE - 1;
+            while (this.index < index - 1) {
+                next();
+            }
+        }
+
+        boolean next() {
+            if (index + 1 >= size) {
+                index = size;
+                return false;
+            }
+            index++;
+            if (index % BLOCK_SIZE == 0) {
+                long position = blocks[index / BLOCK_SIZE];
+                page = pages[(int) (position >>> 32)];
+                offset = (int) position;
+            }
+            int prefix = readVarInt();
+            int suffix = readVarInt();
+            System.arraycopy(page, offset, key, prefix, suffix);
+            offset += suffix;
+            length = prefix + suffix;
+            return true;
+        }
+
+        int compareTo(byte[] probe) {
+            return Arrays.compareUnsigned(key, 0, length, probe, 0, probe.length);
+        }
+
+        boolean startsWith(byte[] prefix) {
+            return length >= prefix.length && Arrays.equals(key, 0, prefix.length, prefix, 0, prefix.length);
+        }
+
+        @Override
+        public String toString() {
+            return new String(key, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = page[offset++];
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    private final class KeyIterator implements Iterator<String> {
+
+        private final Cursor cursor;
+
+        private final byte[] prefix;
+
+        private final boolean host;
+
+        private boolean ready;
+
+        private boolean more;
+
+        /**
+         * Iterate from the key the cursor moves to next. If a prefix is given, iteration ends at the first key
+         * without it. If host is true, keys that continue the host of the prefix are skipped.
+         */
+        KeyIterator(Cursor cursor, byte[] prefix, boolean host) {
+            this.cursor = cursor;
+            this.prefix = prefix;
+            this.host = host;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!ready) {
+                more = advance();
+                ready = true;
+            }
+            return more;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return cursor.toString();
+        }
+
+        private boolean advance() {
+            while (cursor.next()) {
+                if (prefix == null) {
+                    return true;
+                }
+                if (!cursor.startsWith(prefix)) {
+                    return false;
+                }
+                if (!host || cursor.length == prefix.length || isHostEnd(cursor.key[prefix.length])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isHostEnd(byte b) {
+            return b == ':' || b == '/' || b == '?' || b == '#';
+        }
+    }
+
+    /**
+     * A builder for URL sets. URLs can be added in any order, duplicates are removed.
+     *
+     * The builder sorts and front codes the URLs in runs of a fixed size, and merges the runs when the set
+     * is built, so that it never holds more than one run of uncompressed URLs.
+     */
+    public static final class Builder {
+
+        private static final int RUN_SIZE = 1 << 16;
+
+        private final List<byte[]> keys;
+
+        private final List<URLSet> runs;
+
+        private Builder() {
+            this.keys = new ArrayList<>();
+            this.runs = new ArrayList<>();
+        }
+
+        public Builder add(URL url) {
+            return add(url.toExternalForm());
+        }
+
+        /**
+         * Add a URL given by its external form. The string is not parsed.
+         *
+         * @param url the external form of the URL
+         * @return this builder
+         */
+        public Builder add(CharSequence url) {
+            keys.add(url.toString().getBytes(StandardCharsets.UTF_8));
+            if (keys.size() >= RUN_SIZE) {
+                flush();
+            }
+            return this;
+        }
+
+        public Builder addAll(Iterable<? extends CharSequence> urls) {
+            for (CharSequence url : urls) {
+                add(url);
+            }
+            return this;
+        }
+
+        public URLSet build() {
+            flush();
+            if (runs.size() == 1) {
+                return runs.get(0);
+            }
+            Encoder encoder = new Encoder();
+            PriorityQueue<URLSet.Cursor> queue = new PriorityQueue<>((c1, c2) ->
+                    Arrays.compareUnsigned(c1.key, 0, c1.length, c2.key, 0, c2.length));
+            for (URLSet run : runs) {
+                URLSet.Cursor cursor = run.new Cursor(0);
+                if (cursor.next()) {
+                    queue.add(cursor);
+                }
+            }
+            while (!queue.isEmpty()) {
+                URLSet.Cursor cursor = queue.poll();
+                encoder.add(cursor.key, cursor.length);
+                if (cursor.next()) {
+                    queue.add(cursor);
+                }
+            }
+            return encoder.build();
+        }
+
+        private void flush() {
+            if (keys.isEmpty() && !runs.isEmpty()) {
+                return;
+            }
+            keys.sort(Arrays::compareUnsigned);
+            Encoder encoder = new Encoder();
+            for (byte[] key : keys) {
+                encoder.add(key, key.length);
+            }
+            runs.add(encoder.build());
+            keys.clear();
+        }
+    }
+
+    /**
+     * Writes sorted keys into blocks, skipping duplicates. A block is collected in a buffer and then
+     * copied into the current page, or into a new page if it does not fit.
+     */
+    private static final class Encoder {
+
+        private final List<byte[]> pages;
+
+        private long[] blocks;
+
+        private int blockCount;
+
+        private byte[] page;
+
+        private int pageOffset;
+
+        private byte[] block;
+
+        private int blockLength;
+
+        private byte[] previous;
+
+        private int previousLength;
+
+        private int size;
+
+        private int maxKeyLength;
+
+        private long byteCount;
+
+        Encoder() {
+            this.pages = new ArrayList<>();
+            this.blocks = new long[64];
+            this.block = new byte[1024];
+            this.previous = new byte[256];
+            this.previousLength = -1;
+        }
+
+        void add(byte[] key, int length) {
+            if (previousLength == length && Arrays.equals(previous, 0, length, key, 0, length)) {
+                return;
+            }
+            int prefix = 0;
+            if (size % BLOCK_SIZE == 0) {
+                flushBlock();
+            } else {
+                int max = Math.min(previousLength, length);
+                while (prefix < max && previous[prefix] == key[prefix]) {
+                    prefix++;
+                }
+            }
+            int suffix = length - prefix;
+            ensureBlockCapacity(10 + suffix);
+            writeVarInt(prefix);
+            writeVarInt(suffix);
+            System.arraycopy(key, prefix, block, blockLength, suffix);
+            blockLength += suffix;
+            if (previous.length < length) {
+                previous = Arrays.copyOf(previous, Math.max(length, previous.length * 2));
+            }
+            System.arraycopy(key, prefix, previous, prefix, suffix);
+            previousLength = length;
+            maxKeyLength = Math.max(maxKeyLength, length);
+            size++;
+        }
+
+        URLSet build() {
+            flushBlock();
+            if (page != null && pageOffset < page.length) {
+                pages.set(pages.size() - 1, Arrays.copyOf(page, pageOffset));
+            }
+            return new URLSet(pages.toArray(new byte[0][]), Arrays.copyOf(blocks, blockCount),
+                    size, maxKeyLength, byteCount);
+        }
+
+        private void flushBlock() {
+            if (blockLength == 0) {
+                return;
+            }
+            if (page == null || pageOffset + blockLength > page.length) {
+                if (page != null && pageOffset < page.length) {
+                    page = Arrays.copyOf(page, pageOffset);
+                    pages.set(pages.size() - 1, page);
+                }
+                page = new byte[Math.max(PAGE_SIZE, blockLength)];
+                pageOffset = 0;
+                pages.add(page);
+            }
+            System.arraycopy(block, 0, page, pageOffset, blockLength);
+            if (blockCount == blocks.length) {
+                blocks = Arrays.copyOf(blocks, blockCount * 2);
+            }
+            blocks[blockCount++] = ((long) (pages.size() - 1) << 32) | pageOffset;
+            pageOffset += blockLength;
+            byteCount += blockLength;
+            blockLength = 0;
+        }
+
+        private void ensureBlockCapacity(int n) {
+            if (blockLength + n > block.length) {
+                block = Arrays.copyOf(block, Math.max(block.length * 2, blockLength + n));
+            }
+        }
+
+        private void writeVarInt(int value) {
+            int v = value;
+            while ((v & ~0x7f) != 0) {
+                block[blockLength++] = (byte) ((v & 0x7f) | 0x80);
+                v >>>= 7;
+            }
+            block[blockLength++] = (byte) v;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.xbib.net.resolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.Security;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * A host resolver that caches the results of another resolver. Resolved addresses are cached for a positive
+ * time-to-live, unknown host names for a negative time-to-live. By default, the time-to-live values are taken
+ * from the security properties {@code networkaddress.cache.ttl} and {@code networkaddress.cache.negative.ttl}
+ * of the JDK name service, with 30 and 10 seconds if not set.
+ *
+ * The cache is bounded. If it is full, expired entries are removed first, then arbitrary entries.
+ */
+public class CachingHostResolver implements HostResolver {
+
+    private static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+    private final HostResolver delegate;
+
+    private final long ttlNanos;
+
+    private final long negativeTtlNanos;
+
+    private final int maximumSize;
+
+    private final LongSupplier ticker;
+
+    private final Map<String, Entry> cache;
+
+    public CachingHostResolver(HostResolver delegate) {
+        this(delegate, ttl("networkaddress.cache.ttl", 30), ttl("networkaddress.cache.negative.ttl", 10),
+                DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public CachingHostResolver(HostResolver delegate, Duration ttl, Duration negativeTtl, int maximumSize) {
+        this(delegate, ttl, negativeTtl, maximumSize, System::nanoTime);
+    }
+
+    CachingHostResolver(HostResolver delegate, Duration ttl, Duration negativeTtl, int maximumSize,
+                        LongSupplier ticker) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximum size must be positive: " + maximumSize);
+        }
+        this.delegate = delegate;
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.maximumSize = maximumSize;
+        this.ticker = ticker;
+        this.cache = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public InetAddress resolve(String hostname) throws UnknownHostException {
+        long now = ticker.getAsLong();
+        Entry entry = cache.get(hostname);
+        if (entry != null) {
+            if (entry.expires - now > 0) {
+                if (entry.inetAddress != null) {
+                    return entry.inetAddress;
+                }
+                throw new UnknownHostException(entry.message);
+            }
+            cache.remove(hostname, entry);
+        }
+        try {
+            InetAddress inetAddress = delegate.resolve(hostname);
+            if (ttlNanos > 0) {
+                put(hostname, new Entry(inetAddress, null, now + ttlNanos), now);
+            }
+            return inetAddress;
+        } catch (UnknownHostException e) {
+            if (negativeTtlNanos > 0) {
+                put(hostname, new Entry(null, e.getMessage(), now + negativeTtlNanos), now);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Remove a host name from the cache.
+     *
+     * @param hostname the host name
+     */
+    public void invalidate(String hostname) {
+        cache.remove(hostname);
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private void put(String hostname, Entry entry, long now) {
+        if (cache.size() >= maximumSize) {
+            cache.values().removeIf(e -> e.expires - now <= 0);
+            Iterator<String> iterator = cache.keySet().iterator();
+            while (cache.size() >= maximumSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        cache.put(hostname, entry);
+    }
+
+    private static Duration ttl(String name, long defaultSeconds) {
+        String value = Security.getProperty(name);
+        if (value != null) {
+            try {
+                long seconds = Long.parseLong(value.trim());
+                // a negative value means forever
+                return Duration.ofSeconds(seconds < 0 ? Long.MAX_VALUE / 1_000_000_000L : seconds);
+            } catch (NumberFormatException e) {
+                // ignore
+            }
+        }
+        return Duration.ofSeconds(defaultSeconds);
+    }
+
+    private record Entry(InetAddress inetAddress, String message, long expires) {
+    }
+}
@@ -0,0 +1,81 @@
+package org.xbib.net.resolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A resolver for host names. Implementations can be registered as a service, the first one found
+ * is used by {@link HostResolvers#getDefault()}.
+ */
+public interface HostResolver {
+
+    /**
+     * Resolve a host name to an address. This method may block.
+     *
+     * @param hostname the host name or a literal IP address
+     * @return the address
+     * @throws UnknownHostException if the host name can not be resolved
+     */
+    InetAddress resolve(String hostname) throws UnknownHostException;
+
+    /**
+     * Resolve a host name on a virtual thread.
+     *
+     * @param hostname the host name
+     * @return a future for the address, completed exceptionally if the host name can not be resolved
+     */
+    default CompletableFuture<InetAddress> resolveAsync(String hostname) {
+        return resolveAsync(hostname, HostResolvers.executor());
+    }
+
+    /**
+     * Resolve a host name with an executor.
+     *
+     * @param hostname the host name
+     * @param executor the executor
+     * @return a future for the address, completed exceptionally if the host name can not be resolved
+     */
+    default CompletableFuture<InetAddress> resolveAsync(String hostname, Executor executor) {
+        CompletableFuture<InetAddress> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(resolve(hostname));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Resolve a batch of host names concurrently, each one on its own virtual thread.
+     *
+     * @param hostnames the host names
+     * @return a future for a map of host names to addresses, in the order of the host names. Host names
+     * that can not be resolved are not contained in the map.
+     */
+    default CompletableFuture<Map<String, InetAddress>> resolveAll(Collection<String> hostnames) {
+        Map<String, CompletableFuture<InetAddress>> futures = new LinkedHashMap<>();
+        for (String hostname : hostnames) {
+            futures.computeIfAbsent(hostname, h -> resolveAsync(h).exceptionally(t -> null));
+        }
+        List<CompletableFuture<InetAddress>> list = new ArrayList<>(futures.values());
+        return CompletableFuture.allOf(list.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            Map<String, InetAddress> map = new LinkedHashMap<>();
+            for (Map.Entry<String, CompletableFuture<InetAddress>> entry : futures.entrySet()) {
+                InetAddress inetAddress = entry.getValue().join();
+                if (inetAddress != null) {
+                    map.put(entry.getKey(), inetAddress);
+                }
+            }
+            return map;
+        });
+    }
+}
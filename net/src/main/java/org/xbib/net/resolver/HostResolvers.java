@@ -0,0 +1,51 @@
+package org.xbib.net.resolver;
+
+import java.util.ServiceLoader;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to the default host resolver.
+ *
+ * The default host resolver is the first {@link HostResolver} service found, or a {@link CachingHostResolver}
+ * in front of the {@link SystemHostResolver}.
+ */
+public final class HostResolvers {
+
+    private static final ExecutorService executorService =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("host-resolver-", 0L).factory());
+
+    private static volatile HostResolver defaultResolver;
+
+    private HostResolvers() {
+    }
+
+    public static HostResolver getDefault() {
+        HostResolver hostResolver = defaultResolver;
+        if (hostResolver == null) {
+            synchronized (HostResolvers.class) {
+                hostResolver = defaultResolver;
+                if (hostResolver == null) {
+                    hostResolver = ServiceLoader.load(HostResolver.class).findFirst()
+                            .orElseGet(() -> new CachingHostResolver(new SystemHostResolver()));
+                    defaultResolver = hostResolver;
+                }
+            }
+        }
+        return hostResolver;
+    }
+
+    /**
+     * Set the default host resolver.
+     *
+     * @param hostResolver the host resolver, or null to restore the initial default
+     */
+    public static void setDefault(HostResolver hostResolver) {
+        defaultResolver = hostResolver;
+    }
+
+    static Executor executor() {
+        return executorService;
+    }
+}
@@ -0,0 +1,75 @@
+package org.xbib.net.resolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A host resolver that never asks a name service. Host names are looked up in a table of added entries,
+ * {@code localhost} is the loopback address, and literal IP addresses are parsed. All other host names
+ * are unknown. This resolver is useful for tests and for running offline.
+ */
+public class LocalHostResolver implements HostResolver {
+
+    private final Map<String, InetAddress> addresses;
+
+    public LocalHostResolver() {
+        this.addresses = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Add a host name with an address.
+     *
+     * @param hostname the host name
+     * @param address the literal IP address
+     * @return this resolver
+     * @throws IllegalArgumentException if the address is not a literal IP address
+     */
+    public LocalHostResolver add(String hostname, String address) {
+        if (!isLiteral(address)) {
+            throw new IllegalArgumentException("not a literal IP address: " + address);
+        }
+        try {
+            InetAddress inetAddress = InetAddress.getByName(address);
+            addresses.put(hostname.toLowerCase(Locale.ROOT),
+                    InetAddress.getByAddress(hostname, inetAddress.getAddress()));
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public InetAddress resolve(String hostname) throws UnknownHostException {
+        InetAddress inetAddress = addresses.get(hostname.toLowerCase(Locale.ROOT));
+        if (inetAddress != null) {
+            return inetAddress;
+        }
+        if ("localhost".equalsIgnoreCase(hostname)) {
+            return InetAddress.getLoopbackAddress();
+        }
+        if (isLiteral(hostname)) {
+            // literal addresses are parsed, not looked up
+            return InetAddress.getByName(hostname);
+        }
+        throw new UnknownHostException(hostname + ": Name or service not known");
+    }
+
+    private static boolean isLiteral(String hostname) {
+        if (hostname.isEmpty()) {
+            return false;
+        }
+        if (hostname.charAt(0) == '[' || hostname.indexOf(':') >= 0) {
+            return true;
+        }
+        for (int i = 0; i < hostname.length(); i++) {
+            char c = hostname.charAt(i);
+            if (c != '.' && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
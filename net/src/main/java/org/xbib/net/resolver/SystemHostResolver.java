@@ -0,0 +1,18 @@
+package org.xbib.net.resolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * A host resolver that uses the name service of the JDK, see {@link InetAddress#getByName(String)}.
+ */
+public class SystemHostResolver implements HostResolver {
+
+    public SystemHostResolver() {
+    }
+
+    @Override
+    public InetAddress resolve(String hostname) throws UnknownHostException {
+        return InetAddress.getByName(hostname);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Classes for resolving host names.
+ */
+package org.xbib.net.resolver;
@@ -1,21 +1,54 @@
 package org.xbib.net.scheme;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Registry of URL schemes.
+ *
+ * Lookups read an immutable snapshot of the registered schemes and are case-insensitive for ASCII letters
+ * without converting the name to lower case. Registering a scheme replaces the snapshot with a copy,
+ * so schemes can be registered while URLs are parsed concurrently.
+ *
+ * Unknown schemes are answered with a {@link DefaultScheme}. Up to {@link #MAX_DEFAULT_SCHEMES} instances
+ * are cached by name, so that unknown schemes do not create a new instance on every lookup.
  */
 public final class SchemeRegistry {
 
+    private static final int MAX_DEFAULT_SCHEMES = 256;
+
+    /**
+     * The names of the built-in schemes, in the order of their ids. The ids are stable, so that they can be
+     * stored, and new names are only appended.
+     */
+    private static final String[] BUILT_IN_NAMES = {
+            Scheme.DNS, Scheme.FILE, Scheme.FTP, Scheme.GIT, Scheme.GIT_HTTPS, Scheme.GOPHER, Scheme.HTTP,
+            Scheme.HTTPS, Scheme.IMAP, Scheme.IMAPS, Scheme.IRC, Scheme.LDAP, Scheme.LDAPS, Scheme.MAILTO,
+            Scheme.NEWS, Scheme.NNTP, Scheme.POP3, Scheme.POP3S, Scheme.REDIS, Scheme.RSYNC, Scheme.RTMP,
+            Scheme.RTSP, Scheme.SFTP, Scheme.SMTP, Scheme.SMTPS, Scheme.SNEWS, Scheme.SSH, Scheme.TELNET,
+            Scheme.TFTP, Scheme.URN, Scheme.WS, Scheme.WSS
+    };
+
+    private static final Map<String, Integer> BUILT_IN_IDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < BUILT_IN_NAMES.length; i++) {
+            BUILT_IN_IDS.put(BUILT_IN_NAMES[i], i);
+        }
+    }
+
     private static final SchemeRegistry registry = new SchemeRegistry();
 
-    private final Map<String, Scheme> schemes;
+    private final Map<String, DefaultScheme> defaultSchemes;
+
+    private volatile Table table;
 
     private SchemeRegistry() {
-        schemes = new HashMap<>();
+        Map<String, Scheme> schemes = new LinkedHashMap<>();
         schemes.put(Scheme.DNS , new DnsScheme());
         schemes.put(Scheme.FILE , new FileScheme());
         schemes.put(Scheme.FTP, new FtpScheme());
@@ -48,6 +81,8 @@ public final class SchemeRegistry {
         schemes.put(Scheme.URN, new UrnScheme());
         schemes.put(Scheme.WS, new WebSocketScheme());
         schemes.put(Scheme.WSS, new SecureWebSocketScheme());
+        this.table = new Table(schemes);
+        this.defaultSchemes = new ConcurrentHashMap<>();
         for (Scheme scheme : ServiceLoader.load(Scheme.class)) {
             register(scheme);
         }
@@ -57,24 +92,152 @@ public final class SchemeRegistry {
         return registry;
     }
 
+    /**
+     * Register a scheme, unless a scheme with the same name is already registered.
+     *
+     * @param scheme the scheme
+     * @return true if the scheme was registered
+     */
     public boolean register(Scheme scheme) {
         String name = scheme.getName();
         if (name == null) {
             return false;
         }
-        if (!schemes.containsKey(name)) {
+        synchronized (this) {
+            Table t = table;
+            if (t.get(name) != null) {
+                return false;
+            }
+            Map<String, Scheme> schemes = t.toMap();
             schemes.put(name.toLowerCase(Locale.ROOT), scheme);
+            table = new Table(schemes);
             return true;
-        } else {
-            return false;
         }
     }
 
+    /**
+     * Return the scheme for a name. The name is case-insensitive.
+     *
+     * @param scheme the name of the scheme
+     * @return the registered scheme, a default scheme if there is none, or null if the name is null
+     */
     public Scheme getScheme(String scheme) {
         if (scheme == null) {
             return null;
         }
-        Scheme s = schemes.get(scheme.toLowerCase(Locale.ROOT));
-        return s != null ? s : new DefaultScheme(scheme);
+        Scheme s = table.get(scheme);
+        if (s != null) {
+            return s;
+        }
+        DefaultScheme defaultScheme = defaultSchemes.get(scheme);
+        if (defaultScheme == null) {
+            defaultScheme = new DefaultScheme(scheme);
+            if (defaultSchemes.size() < MAX_DEFAULT_SCHEMES) {
+                DefaultScheme previous = defaultSchemes.putIfAbsent(scheme, defaultScheme);
+                if (previous != null) {
+                    defaultScheme = previous;
+                }
+            }
+        }
+        return defaultScheme;
+    }
+
+    /**
+     * Return the stable id of a built-in scheme name. Only the lower case name has an id.
+     *
+     * @param scheme the name of the scheme
+     * @return the id, or -1 if the name is not the lower case name of a built-in scheme
+     */
+    public int getId(String scheme) {
+        Integer id = scheme != null ? BUILT_IN_IDS.get(scheme) : null;
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Return the name of a built-in scheme for an id returned by {@link #getId(String)}.
+     *
+     * @param id the id
+     * @return the lower case name of the scheme
+     * @throws IllegalArgumentException if there is no built-in scheme with this id
+     */
+    public String getName(int id) {
+        if (id < 0 || id >= BUILT_IN_NAMES.length) {
+            throw new IllegalArgumentException("unknown scheme id " + id);
+        }
+        return BUILT_IN_NAMES[id];
+    }
+
+    /**
+     * An immutable open-addressing hash table from lower case names to schemes. The hash of a name is
+     * computed with ASCII letters folded to lower case, which equals the string hash code of the lower case name.
+     */
+    private static final class Table {
+
+        private final String[] names;
+
+        private final Scheme[] schemes;
+
+        private final int mask;
+
+        Table(Map<String, Scheme> map) {
+            int capacity = Integer.highestOneBit(Math.max(1, map.size()) * 2 - 1) << 1;
+            this.names = new String[capacity];
+            this.schemes = new Scheme[capacity];
+            this.mask = capacity - 1;
+            for (Map.Entry<String, Scheme> entry : map.entrySet()) {
+                int slot = spread(entry.getKey().hashCode()) & mask;
+                while (names[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                names[slot] = entry.getKey();
+                schemes[slot] = entry.getValue();
+            }
+        }
+
+        Scheme get(String name) {
+            int h = 0;
+            for (int i = 0; i < name.length(); i++) {
+                h = 31 * h + toLowerCase(name.charAt(i));
+            }
+            int slot = spread(h) & mask;
+            String candidate;
+            while ((candidate = names[slot]) != null) {
+                if (equalsIgnoreCase(candidate, name)) {
+                    return schemes[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        Map<String, Scheme> toMap() {
+            Map<String, Scheme> map = new LinkedHashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                if (names[i] != null) {
+                    map.put(names[i], schemes[i]);
+                }
+            }
+            return map;
+        }
+
+        private static boolean equalsIgnoreCase(String lowerCase, String name) {
+            if (lowerCase.length() != name.length()) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (lowerCase.charAt(i) != toLowerCase(name.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static char toLowerCase(char c) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+
+        private static int spread(int h) {
+            return h ^ (h >>> 16);
+        }
     }
 }
@@ -5,23 +5,80 @@ import org.xbib.net.template.expression.URITemplateExpression;
 import org.xbib.net.template.parse.URITemplateParser;
 import org.xbib.net.template.vars.Variables;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
  * URI templates.
+ *
+ * A template is parsed once into a sequence of literals and expressions. Expansion appends
+ * the literals and the rendered variable values directly to a string builder or an appendable,
+ * so a template can be expanded many times without building intermediate strings.
+ *
+ * Templates are immutable. {@link #of(String)} returns shared templates from a bounded cache.
  */
 public class URITemplate {
 
+    private static final int CACHE_SIZE = 1024;
+
+    private static final URITemplateCache CACHE = new URITemplateCache(CACHE_SIZE);
+
     private final List<URITemplateExpression> expressions;
 
+    private final URITemplateExpression[] plan;
+
+    private URITemplateMatcher matcher;
+
     public URITemplate(String input) {
-        this.expressions = URITemplateParser.parse(input);
+        this.expressions = List.copyOf(URITemplateParser.parse(input));
+        this.plan = expressions.toArray(new URITemplateExpression[0]);
+    }
+
+    /**
+     * Return a shared template for a template string. Parsed templates are kept in a bounded cache,
+     * the least recently used templates are evicted.
+     *
+     * @param input the template string
+     * @return the template
+     */
+    public static URITemplate of(String input) {
+        return CACHE.get(input);
     }
 
     public List<URITemplateExpression> expressions() {
         return expressions;
     }
 
+    /**
+     * Expand this template into an appendable.
+     *
+     * @param vars       the variables
+     * @param appendable the appendable
+     * @throws IOException if the appendable fails
+     */
+    public void expand(Variables vars, Appendable appendable) throws IOException {
+        for (URITemplateExpression expression : plan) {
+            expression.expand(vars, appendable);
+        }
+    }
+
+    /**
+     * Expand this template into a string builder.
+     *
+     * @param vars the variables
+     * @param sb   the string builder
+     * @return the string builder
+     */
+    public StringBuilder expand(Variables vars, StringBuilder sb) {
+        try {
+            expand(vars, (Appendable) sb);
+        } catch (IOException e) {
+            // never thrown by a string builder
+            throw new IllegalStateException(e);
+        }
+        return sb;
+    }
+
     /**
      * Expand this template to a string given a list of variables.
      *
@@ -29,11 +86,24 @@ public class URITemplate {
      * @return expanded string
      */
     public String toString(Variables vars) {
-        StringBuilder sb = new StringBuilder();
-        for (URITemplateExpression expression : expressions) {
-            sb.append(expression.expand(vars));
+        return expand(vars, new StringBuilder()).toString();
+    }
+
+    /**
+     * Match an input against this template and extract the variables.
+     *
+     * @param input the input
+     * @return the variables, or null if the input does not match
+     * @see URITemplateMatcher
+     */
+    public Variables match(String input) {
+        URITemplateMatcher m = matcher;
+        if (m == null) {
+            // racy but safe, the matcher is immutable
+            m = new URITemplateMatcher(this);
+            matcher = m;
         }
-        return sb.toString();
+        return m.match(input);
     }
 
     /**
@@ -0,0 +1,34 @@
+package org.xbib.net.template;
+
+import org.xbib.net.util.SegmentedCache;
+
+/**
+ * A concurrent, size-bounded cache of parsed URI templates, keyed by the template string.
+ * When the cache is full, the least recently used template is evicted.
+ */
+final class URITemplateCache {
+
+    private final SegmentedCache<String, URITemplate> cache;
+
+    URITemplateCache(int maximumSize) {
+        this.cache = new SegmentedCache<>(maximumSize, false);
+    }
+
+    URITemplate get(String input) {
+        URITemplate template = cache.get(input);
+        if (template == null) {
+            // parse outside of the lock, a concurrent parse of the same input is harmless
+            template = new URITemplate(input);
+            cache.put(input, template);
+        }
+        return template;
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+    void clear() {
+        cache.clear();
+    }
+}
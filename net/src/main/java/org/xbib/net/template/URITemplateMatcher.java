@@ -0,0 +1,298 @@
+package org.xbib.net.template;
+
+import org.xbib.net.PercentDecoder;
+import org.xbib.net.template.expression.ExpressionType;
+import org.xbib.net.template.expression.TemplateExpression;
+import org.xbib.net.template.expression.TemplateLiteral;
+import org.xbib.net.template.expression.URITemplateExpression;
+import org.xbib.net.template.vars.Variables;
+import org.xbib.net.template.vars.specs.VariableSpec;
+import org.xbib.net.util.CharMatcher;
+
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.UnmappableCharacterException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Match URIs against a URI template and extract the values of the variables.
+ *
+ * The template is compiled once into a sequence of literal and expression parts. Matching walks the input
+ * once from left to right, without backtracking. An expression ends at the next occurrence of the following
+ * literal, at a character its values can not contain, or when all its variables have a value. A reserved
+ * or fragment expression that is followed by another expression ends at the last occurrence of the prefix of
+ * that expression.
+ *
+ * Expressions of level 1 to 3 are supported, together with the explode modifier for lists, for example
+ * {@code {var}}, {@code {+var}}, {@code {/var*}} or {@code {?x,y}}. An exploded variable takes all remaining
+ * elements of its expression. Values are percent-decoded as UTF-8.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public class URITemplateMatcher {
+
+    private static final CharMatcher RESERVED = CharMatcher.anyOf(":/?#[]@!$&'()*+,;=").precomputed();
+
+    private final Part[] parts;
+
+    public URITemplateMatcher(URITemplate template) {
+        List<URITemplateExpression> expressions = template.expressions();
+        this.parts = new Part[expressions.size()];
+        for (int i = 0; i < parts.length; i++) {
+            URITemplateExpression expression = expressions.get(i);
+            if (expression instanceof TemplateLiteral literal) {
+                parts[i] = new Part(literal.getLiteral(), null, null);
+            } else if (expression instanceof TemplateExpression templateExpression) {
+                parts[i] = new Part(null, templateExpression.getExpressionType(),
+                        templateExpression.getVariableSpecs().toArray(new VariableSpec[0]));
+            } else {
+                throw new IllegalArgumentException("unsupported expression: " + expression);
+            }
+        }
+    }
+
+    /**
+     * Check if an input matches the template.
+     *
+     * @param input the input
+     * @return true if the input matches
+     */
+    public boolean matches(String input) {
+        return match(input) != null;
+    }
+
+    /**
+     * Match an input against the template.
+     *
+     * @param input the input
+     * @return the variables, or null if the input does not match
+     */
+    public Variables match(String input) {
+        Match match = new Match(input);
+        int pos = 0;
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                Part part = parts[i];
+                if (part.literal != null) {
+                    if (!input.startsWith(part.literal, pos)) {
+                        return null;
+                    }
+                    pos += part.literal.length();
+                    continue;
+                }
+                Part next = i + 1 < parts.length ? parts[i + 1] : null;
+                int limit = input.length();
+                char stop = 0;
+                if (next != null) {
+                    if (next.literal != null) {
+                        limit = input.indexOf(next.literal, pos);
+                        if (limit < 0) {
+                            return null;
+                        }
+                    } else if (next.prefix != 0) {
+                        stop = next.prefix;
+                        if (part.reserved) {
+                            int j = input.lastIndexOf(stop, limit - 1);
+                            if (j >= pos) {
+                                limit = j;
+                            }
+                            stop = 0;
+                        }
+                    }
+                }
+                pos = part.named ? matchNamed(part, match, pos, limit, stop) : matchUnnamed(part, match, pos, limit, stop);
+                if (pos < 0) {
+                    return null;
+                }
+            }
+        } catch (MalformedInputException | UnmappableCharacterException | IllegalArgumentException e) {
+            return null;
+        }
+        return pos == input.length() ? match.builder.build() : null;
+    }
+
+    private static int matchUnnamed(Part part, Match match, int pos, int limit, char stop)
+            throws MalformedInputException, UnmappableCharacterException {
+        String input = match.input;
+        int p = pos;
+        if (part.prefix != 0) {
+            if (p == limit || input.charAt(p) != part.prefix) {
+                // all variables are undefined
+                return p;
+            }
+            p++;
+        }
+        VariableSpec[] specs = part.specs;
+        for (int i = 0; i < specs.length; i++) {
+            boolean last = i == specs.length - 1;
+            if (specs[i].isExploded()) {
+                List<String> list = new ArrayList<>();
+                while (true) {
+                    int end = scanValue(part, input, p, limit, stop, false);
+                    list.add(match.decode(p, end));
+                    p = end;
+                    if (p == limit || input.charAt(p) != part.separator) {
+                        break;
+                    }
+                    p++;
+                }
+                match.builder.add(specs[i].getName(), list);
+                return p;
+            }
+            int end = scanValue(part, input, p, limit, stop, last);
+            match.builder.add(specs[i].getName(), match.decode(p, end));
+            p = end;
+            if (last || p == limit || input.charAt(p) != part.separator) {
+                break;
+            }
+            p++;
+        }
+        return p;
+    }
+
+    private static int matchNamed(Part part, Match match, int pos, int limit, char stop)
+            throws MalformedInputException, UnmappableCharacterException {
+        String input = match.input;
+        if (pos == limit || input.charAt(pos) != part.prefix) {
+            // all variables are undefined
+            return pos;
+        }
+        Map<String, List<String>> exploded = null;
+        int elementStart = pos;
+        int p = pos + 1;
+        while (true) {
+            int nameEnd = p;
+            while (nameEnd < limit && !RESERVED.matches(input.charAt(nameEnd))) {
+                nameEnd++;
+            }
+            VariableSpec spec = findSpec(part.specs, input, p, nameEnd);
+            if (spec == null) {
+                // the element belongs to a following expression, or does not match at all
+                return elementStart == pos ? -1 : elementStart;
+            }
+            int end = nameEnd;
+            String value = "";
+            if (end < limit && input.charAt(end) == '=') {
+                end = scanValue(part, input, nameEnd + 1, limit, stop, false);
+                value = match.decode(nameEnd + 1, end);
+            }
+            if (spec.isExploded()) {
+                if (exploded == null) {
+                    exploded = new LinkedHashMap<>();
+                }
+                exploded.computeIfAbsent(spec.getName(), k -> new ArrayList<>()).add(value);
+            } else {
+                match.builder.add(spec.getName(), value);
+            }
+            p = end;
+            if (p == limit || input.charAt(p) != part.separator) {
+                break;
+            }
+            elementStart = p;
+            p++;
+        }
+        if (exploded != null) {
+            exploded.forEach(match.builder::add);
+        }
+        return p;
+    }
+
+    /**
+     * Find the end of a value. If rest is true, the value may contain the separator of the expression.
+     */
+    private static int scanValue(Part part, String input, int start, int limit, char stop, boolean rest) {
+        int i = start;
+        while (i < limit) {
+            char c = input.charAt(i);
+            if (c == stop || (c == part.separator && !rest) || !part.allows(c)) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static VariableSpec findSpec(VariableSpec[] specs, String input, int start, int end) {
+        int length = end - start;
+        for (VariableSpec spec : specs) {
+            String name = spec.getName();
+            if (name.length() == length && input.regionMatches(start, name, 0, length)) {
+                return spec;
+            }
+        }
+        return null;
+    }
+
+    private static final class Part {
+
+        private final String literal;
+
+        private final VariableSpec[] specs;
+
+        private final char prefix;
+
+        private final char separator;
+
+        private final boolean named;
+
+        private final boolean reserved;
+
+        private final boolean fragment;
+
+        Part(String literal, ExpressionType type, VariableSpec[] specs) {
+            this.literal = literal;
+            this.specs = specs;
+            if (type != null) {
+                this.prefix = type.getPrefix().isEmpty() ? 0 : type.getPrefix().charAt(0);
+                this.separator = type.getSeparator();
+                this.named = type.isNamed();
+                this.reserved = type == ExpressionType.RESERVED || type == ExpressionType.FRAGMENT;
+                this.fragment = type == ExpressionType.FRAGMENT;
+            } else {
+                this.prefix = 0;
+                this.separator = 0;
+                this.named = false;
+                this.reserved = false;
+                this.fragment = false;
+            }
+        }
+
+        /**
+         * Check if a value of this expression can contain a character. Values of reserved expansions can contain
+         * reserved characters except for the fragment delimiter, other values can contain commas of lists.
+         */
+        boolean allows(char c) {
+            if (reserved) {
+                return fragment || c != '#';
+            }
+            return c == ',' || !RESERVED.matches(c);
+        }
+    }
+
+    private static final class Match {
+
+        private final String input;
+
+        private final Variables.Builder builder;
+
+        private PercentDecoder decoder;
+
+        Match(String input) {
+            this.input = input;
+            this.builder = Variables.builder();
+        }
+
+        String decode(int start, int end) throws MalformedInputException, UnmappableCharacterException {
+            int i = input.indexOf('%', start);
+            if (i < 0 || i >= end) {
+                return input.substring(start, end);
+            }
+            if (decoder == null) {
+                decoder = new PercentDecoder();
+            }
+            return decoder.decode(input, start, end);
+        }
+    }
+}
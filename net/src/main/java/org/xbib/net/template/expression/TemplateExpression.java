@@ -3,13 +3,17 @@ package org.xbib.net.template.expression;
 import org.xbib.net.template.render.ValueRenderer;
 import org.xbib.net.template.vars.Variables;
 import org.xbib.net.template.vars.specs.VariableSpec;
+import org.xbib.net.template.vars.values.ValueType;
 import org.xbib.net.template.vars.values.VariableValue;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
 
 /**
  * Template expression.
+ *
+ * The renderers for all value types are selected once, when the expression is created, so that
+ * expansion only looks up the variables and appends the rendered values.
  */
 public class TemplateExpression implements URITemplateExpression {
 
@@ -17,6 +21,10 @@ public class TemplateExpression implements URITemplateExpression {
 
     private final List<VariableSpec> variableSpecs;
 
+    private final VariableSpec[] specs;
+
+    private final ValueRenderer[] renderers;
+
     public TemplateExpression(ExpressionType expressionType, List<VariableSpec> variableSpecs) {
         this.expressionType = expressionType;
         this.variableSpecs = variableSpecs;
@@ -26,28 +34,43 @@ public class TemplateExpression implements URITemplateExpression {
         if (variableSpecs == null) {
             throw new IllegalArgumentException("variables must not be null");
         }
+        this.specs = variableSpecs.toArray(new VariableSpec[0]);
+        ValueType[] valueTypes = ValueType.values();
+        this.renderers = new ValueRenderer[valueTypes.length];
+        for (ValueType valueType : valueTypes) {
+            renderers[valueType.ordinal()] = valueType.selectRenderer(expressionType);
+        }
+    }
+
+    public ExpressionType getExpressionType() {
+        return expressionType;
+    }
+
+    public List<VariableSpec> getVariableSpecs() {
+        return variableSpecs;
     }
 
     @Override
     public String expand(Variables vars)  {
-        List<String> expansions = new ArrayList<>();
-        VariableValue value;
-        ValueRenderer renderer;
-        for (VariableSpec varspec : variableSpecs) {
-            value = vars.get(varspec.getName());
-            if (value == null) {
-                continue;
-            }
-            renderer = value.getType().selectRenderer(expressionType);
-            List<String> list = renderer.render(varspec, value);
-            if (list != null) {
-                expansions.addAll(list);
-            }
+        StringBuilder sb = new StringBuilder();
+        try {
+            expand(vars, sb);
+        } catch (IOException e) {
+            // never thrown by a string builder
+            throw new IllegalStateException(e);
         }
-        if (expansions.isEmpty()) {
-            return "";
+        return sb.toString();
+    }
+
+    @Override
+    public void expand(Variables vars, Appendable appendable) throws IOException {
+        int count = 0;
+        for (VariableSpec varspec : specs) {
+            VariableValue value = vars.get(varspec.getName());
+            if (value != null) {
+                count = renderers[value.getType().ordinal()].render(varspec, value, appendable, count);
+            }
         }
-        return expressionType.getPrefix() + String.join(Character.toString(expressionType.getSeparator()), expansions);
     }
 
     @Override
@@ -2,20 +2,73 @@ package org.xbib.net.template.expression;
 
 import org.xbib.net.template.vars.Variables;
 
+import java.io.IOException;
+
 /**
  * Template literal.
+ *
+ * Characters outside of US-ASCII are percent-encoded as UTF-8 once, when the literal is created.
  */
 public
 class TemplateLiteral implements URITemplateExpression {
 
+    private static final char[] HEX_CODE = "0123456789ABCDEF".toCharArray();
+
     private final String literal;
 
     public TemplateLiteral(String literal) {
-        this.literal = literal;
+        this.literal = encode(literal);
+    }
+
+    public String getLiteral() {
+        return literal;
     }
 
     @Override
     public String expand(Variables vars) {
         return literal;
     }
+
+    @Override
+    public void expand(Variables vars, Appendable appendable) throws IOException {
+        appendable.append(literal);
+    }
+
+    private static String encode(String literal) {
+        int i = 0;
+        while (i < literal.length() && literal.charAt(i) < 128) {
+            i++;
+        }
+        if (i == literal.length()) {
+            return literal;
+        }
+        StringBuilder sb = new StringBuilder(literal.length() + 16).append(literal, 0, i);
+        while (i < literal.length()) {
+            int cp = literal.codePointAt(i);
+            i += Character.charCount(cp);
+            if (cp < 0x80) {
+                sb.append((char) cp);
+            } else if (cp < 0x800) {
+                appendByte(sb, 0xc0 | (cp >> 6));
+                appendByte(sb, 0x80 | (cp & 0x3f));
+            } else if (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE) {
+                // an unpaired surrogate is replaced like the UTF-8 encoder of the JDK does
+                appendByte(sb, '?');
+            } else if (cp < 0x10000) {
+                appendByte(sb, 0xe0 | (cp >> 12));
+                appendByte(sb, 0x80 | ((cp >> 6) & 0x3f));
+                appendByte(sb, 0x80 | (cp & 0x3f));
+            } else {
+                appendByte(sb, 0xf0 | (cp >> 18));
+                appendByte(sb, 0x80 | ((cp >> 12) & 0x3f));
+                appendByte(sb, 0x80 | ((cp >> 6) & 0x3f));
+                appendByte(sb, 0x80 | (cp & 0x3f));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendByte(StringBuilder sb, int b) {
+        sb.append('%').append(HEX_CODE[(b >> 4) & 0xf]).append(HEX_CODE[b & 0xf]);
+    }
 }
@@ -2,10 +2,23 @@ package org.xbib.net.template.expression;
 
 import org.xbib.net.template.vars.Variables;
 
+import java.io.IOException;
+
 /**
  * Template expression interface.
  */
 public interface URITemplateExpression {
 
     String expand(Variables vars);
+
+    /**
+     * Expand this expression into an appendable.
+     *
+     * @param vars       the variables
+     * @param appendable the appendable
+     * @throws IOException if the appendable fails
+     */
+    default void expand(Variables vars, Appendable appendable) throws IOException {
+        appendable.append(expand(vars));
+    }
 }
@@ -3,6 +3,7 @@ package org.xbib.net.template.render;
 import org.xbib.net.template.expression.ExpressionType;
 import org.xbib.net.template.vars.values.VariableValue;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -47,4 +48,66 @@ public class ListRenderer extends MultiValueRenderer {
         List<String> elements = value.getListValue().stream().map(this::pctEncode).collect(Collectors.toList());
         return Collections.singletonList(String.join(",", elements));
     }
+
+    @Override
+    protected int renderNamedExploded(String varname, VariableValue value, Appendable appendable, int count)
+            throws IOException {
+        for (String element : value.getListValue()) {
+            beginElement(appendable, count++);
+            appendable.append(varname);
+            if (element.isEmpty()) {
+                appendable.append(ifEmpty);
+            } else {
+                appendable.append('=');
+                pctEncode(element, appendable);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    protected int renderUnnamedExploded(VariableValue value, Appendable appendable, int count)
+            throws IOException {
+        for (String element : value.getListValue()) {
+            beginElement(appendable, count++);
+            pctEncode(element, appendable);
+        }
+        return count;
+    }
+
+    @Override
+    protected int renderNamedNormal(String varname, VariableValue value, Appendable appendable, int count)
+            throws IOException {
+        beginElement(appendable, count);
+        appendable.append(varname);
+        if (value.isEmpty()) {
+            appendable.append(ifEmpty);
+        } else {
+            appendable.append('=');
+            appendElements(value, appendable);
+        }
+        return count + 1;
+    }
+
+    @Override
+    protected int renderUnnamedNormal(VariableValue value, Appendable appendable, int count)
+            throws IOException {
+        if (value.isEmpty()) {
+            return count;
+        }
+        beginElement(appendable, count);
+        appendElements(value, appendable);
+        return count + 1;
+    }
+
+    private void appendElements(VariableValue value, Appendable appendable) throws IOException {
+        boolean first = true;
+        for (String element : value.getListValue()) {
+            if (!first) {
+                appendable.append(',');
+            }
+            pctEncode(element, appendable);
+            first = false;
+        }
+    }
 }
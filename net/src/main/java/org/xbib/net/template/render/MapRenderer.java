@@ -3,9 +3,11 @@ package org.xbib.net.template.render;
 import org.xbib.net.template.expression.ExpressionType;
 import org.xbib.net.template.vars.values.VariableValue;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -51,6 +53,72 @@ public  class MapRenderer extends MultiValueRenderer {
         return Collections.singletonList(String.join(",", elements));
     }
 
+    @Override
+    protected int renderNamedExploded(String varname, VariableValue value, Appendable appendable, int count)
+            throws IOException {
+        for (Map.Entry<String, String> entry : value.getMapValue().entrySet()) {
+            beginElement(appendable, count++);
+            pctEncode(entry.getKey(), appendable);
+            if (entry.getValue().isEmpty()) {
+                appendable.append(ifEmpty);
+            } else {
+                appendable.append('=');
+                pctEncode(entry.getValue(), appendable);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    protected int renderUnnamedExploded(VariableValue value, Appendable appendable, int count)
+            throws IOException {
+        for (Map.Entry<String, String> entry : value.getMapValue().entrySet()) {
+            beginElement(appendable, count++);
+            pctEncode(entry.getKey(), appendable);
+            appendable.append('=');
+            pctEncode(entry.getValue(), appendable);
+        }
+        return count;
+    }
+
+    @Override
+    protected int renderNamedNormal(String varname, VariableValue value, Appendable appendable, int count)
+            throws IOException {
+        beginElement(appendable, count);
+        appendable.append(varname);
+        if (value.isEmpty()) {
+            appendable.append(ifEmpty);
+        } else {
+            appendable.append('=');
+            appendEntries(value, appendable);
+        }
+        return count + 1;
+    }
+
+    @Override
+    protected int renderUnnamedNormal(VariableValue value, Appendable appendable, int count)
+            throws IOException {
+        if (value.isEmpty()) {
+            return count;
+        }
+        beginElement(appendable, count);
+        appendEntries(value, appendable);
+        return count + 1;
+    }
+
+    private void appendEntries(VariableValue value, Appendable appendable) throws IOException {
+        boolean first = true;
+        for (Map.Entry<String, String> entry : value.getMapValue().entrySet()) {
+            if (!first) {
+                appendable.append(',');
+            }
+            pctEncode(entry.getKey(), appendable);
+            appendable.append(',');
+            pctEncode(entry.getValue(), appendable);
+            first = false;
+        }
+    }
+
     private static List<String> mapAsList(VariableValue value) {
         List<String> ret = new ArrayList<>();
         value.getMapValue().forEach((k, v) -> {
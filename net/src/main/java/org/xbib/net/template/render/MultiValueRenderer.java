@@ -4,6 +4,7 @@ import org.xbib.net.template.expression.ExpressionType;
 import org.xbib.net.template.vars.specs.VariableSpec;
 import org.xbib.net.template.vars.values.VariableValue;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -26,6 +27,20 @@ abstract class MultiValueRenderer extends ValueRenderer {
                 (varspec.isExploded() ? renderUnnamedExploded(value) : renderUnnamedNormal(value));
     }
 
+    @Override
+    public int render(VariableSpec varspec, VariableValue value, Appendable appendable, int count)
+            throws IOException {
+        if (varspec.getPrefixLength() != -1) {
+            throw new IllegalArgumentException("incompatible var spec value");
+        }
+        String varname = varspec.getName();
+        return named ?
+                (varspec.isExploded() ? renderNamedExploded(varname, value, appendable, count) :
+                        renderNamedNormal(varname, value, appendable, count)) :
+                (varspec.isExploded() ? renderUnnamedExploded(value, appendable, count) :
+                        renderUnnamedNormal(value, appendable, count));
+    }
+
     protected abstract List<String> renderNamedExploded(String varname, VariableValue value);
 
     protected abstract List<String> renderUnnamedExploded(VariableValue value);
@@ -46,4 +61,16 @@ abstract class MultiValueRenderer extends ValueRenderer {
      * @return list of rendered elements
      */
     protected abstract List<String> renderUnnamedNormal(VariableValue value);
+
+    protected abstract int renderNamedExploded(String varname, VariableValue value, Appendable appendable, int count)
+            throws IOException;
+
+    protected abstract int renderUnnamedExploded(VariableValue value, Appendable appendable, int count)
+            throws IOException;
+
+    protected abstract int renderNamedNormal(String varname, VariableValue value, Appendable appendable, int count)
+            throws IOException;
+
+    protected abstract int renderUnnamedNormal(VariableValue value, Appendable appendable, int count)
+            throws IOException;
 }
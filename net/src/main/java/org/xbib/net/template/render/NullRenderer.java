@@ -4,6 +4,7 @@ import org.xbib.net.template.expression.ExpressionType;
 import org.xbib.net.template.vars.specs.VariableSpec;
 import org.xbib.net.template.vars.values.VariableValue;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -19,4 +20,10 @@ public class NullRenderer extends ValueRenderer {
     public List<String> render(VariableSpec varspec, VariableValue value) {
         return null;
     }
+
+    @Override
+    public int render(VariableSpec varspec, VariableValue value, Appendable appendable, int count)
+            throws IOException {
+        return count;
+    }
 }
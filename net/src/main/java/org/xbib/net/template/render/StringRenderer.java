@@ -4,6 +4,7 @@ import org.xbib.net.template.expression.ExpressionType;
 import org.xbib.net.template.vars.specs.VariableSpec;
 import org.xbib.net.template.vars.values.VariableValue;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
@@ -21,6 +22,26 @@ public class StringRenderer extends ValueRenderer {
         return Collections.singletonList(doRender(varspec, value.getScalarValue()));
     }
 
+    @Override
+    public int render(VariableSpec varspec, VariableValue value, Appendable appendable, int count)
+            throws IOException {
+        String s = value.getScalarValue();
+        beginElement(appendable, count);
+        if (s == null) {
+            return count + 1;
+        }
+        if (named) {
+            appendable.append(varspec.getName());
+            if (s.isEmpty()) {
+                appendable.append(ifEmpty);
+                return count + 1;
+            }
+            appendable.append('=');
+        }
+        pctEncode(s, 0, prefixEnd(s, varspec.getPrefixLength()), appendable);
+        return count + 1;
+    }
+
     private String doRender(VariableSpec varspec, String value) {
         if (value == null) {
             return "";
@@ -37,17 +58,17 @@ public class StringRenderer extends ValueRenderer {
         if (prefixLen == -1) {
             return sb.append(pctEncode(value)).toString();
         }
-        int len = value.codePointCount(0, value.length());
-        return len <= prefixLen ?
-                sb.append(pctEncode(value)).toString() :
-                sb.append(pctEncode(nFirstChars(value, prefixLen))).toString();
+        return sb.append(pctEncode(value.substring(0, prefixEnd(value, prefixLen)))).toString();
     }
 
-    private static String nFirstChars(String s, int n) {
-        int realIndex = n;
-        while (s.codePointCount(0, realIndex) != n) {
-            realIndex++;
+    /**
+     * Return the offset after the first n code points of a string, or the length of the string
+     * if it is shorter or if there is no prefix.
+     */
+    private static int prefixEnd(String s, int n) {
+        if (n == -1 || n >= s.length()) {
+            return s.length();
         }
-        return s.substring(0, realIndex);
+        return s.codePointCount(0, s.length()) <= n ? s.length() : s.offsetByCodePoints(0, n);
     }
 }
@@ -6,6 +6,7 @@ import org.xbib.net.template.expression.ExpressionType;
 import org.xbib.net.template.vars.specs.VariableSpec;
 import org.xbib.net.template.vars.values.VariableValue;
 
+import java.io.IOException;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
@@ -21,6 +22,9 @@ import java.util.List;
  *
  * This class renders one variable value according to the expression type and
  * value type. The rendering method returns a list, which can be empty.
+ *
+ * Renderers can also append their elements directly to an {@link Appendable}, together with
+ * the prefix and the separators of the expression, without building intermediate lists.
  */
 public abstract class ValueRenderer {
     /**
@@ -33,6 +37,16 @@ public abstract class ValueRenderer {
      */
     protected final String ifEmpty;
 
+    /**
+     * Prefix string of the expansion, appended before the first element.
+     */
+    protected final String prefix;
+
+    /**
+     * Separator appended between elements.
+     */
+    protected final char separator;
+
     /**
      * The percent encoder.
      */
@@ -41,6 +55,8 @@ public abstract class ValueRenderer {
     protected ValueRenderer(ExpressionType type) {
         named = type.isNamed();
         ifEmpty = type.getIfEmpty();
+        prefix = type.getPrefix();
+        separator = type.getSeparator();
         switch (type) {
             case RESERVED:
             case FRAGMENT:
@@ -61,6 +77,37 @@ public abstract class ValueRenderer {
      */
     public abstract List<String> render(VariableSpec varspec, VariableValue value);
 
+    /**
+     * Render a value given a varspec and value into an appendable.
+     *
+     * Every rendered element is preceded by the prefix if it is the first element of the
+     * expression, or by the separator otherwise.
+     *
+     * @param varspec    the varspec
+     * @param value      the matching variable value
+     * @param appendable the appendable
+     * @param count      the number of elements already rendered in the expression
+     * @return the number of elements rendered in the expression, including the elements of this value
+     * @throws IOException if the appendable fails
+     */
+    public abstract int render(VariableSpec varspec, VariableValue value, Appendable appendable, int count)
+            throws IOException;
+
+    /**
+     * Append the prefix or the separator in front of an element.
+     *
+     * @param appendable the appendable
+     * @param count      the number of elements already rendered in the expression
+     * @throws IOException if the appendable fails
+     */
+    protected void beginElement(Appendable appendable, int count) throws IOException {
+        if (count == 0) {
+            appendable.append(prefix);
+        } else {
+            appendable.append(separator);
+        }
+    }
+
     /**
      * Render a string value, doing character percent-encoding where needed.
      *
@@ -77,4 +124,32 @@ public abstract class ValueRenderer {
             throw new IllegalStateException(e);
         }
     }
+
+    /**
+     * Percent-encode a part of a string into an appendable.
+     *
+     * @param s          the string to encode
+     * @param start      the offset of the first character
+     * @param end        the offset after the last character
+     * @param appendable the appendable
+     * @throws IOException if the appendable fails
+     */
+    protected void pctEncode(String s, int start, int end, Appendable appendable) throws IOException {
+        try {
+            percentEncoder.encode(s, start, end, appendable);
+        } catch (CharacterCodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Percent-encode a string into an appendable.
+     *
+     * @param s          the string to encode
+     * @param appendable the appendable
+     * @throws IOException if the appendable fails
+     */
+    protected void pctEncode(String s, Appendable appendable) throws IOException {
+        pctEncode(s, 0, s.length(), appendable);
+    }
 }
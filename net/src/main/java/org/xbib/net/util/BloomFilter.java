@@ -0,0 +1,156 @@
+package org.xbib.net.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A concurrent Bloom filter for 64-bit hashes.
+ *
+ * The filter is blocked: the bits of a hash are all set in one block of 512 bits, which is a cache line,
+ * so an insertion or a lookup touches one cache line only. The block is chosen by the upper 32 bits of the hash,
+ * the bits in the block are the upper 9 bits of the hash multiplied by the powers of a constant, so they depend
+ * on all bits of the hash. Bits are set with atomic bitwise operations, so the filter can be used by many threads
+ * without locking.
+ *
+ * The number of hashes in a block varies, and full blocks raise the false positive probability above the one
+ * of a standard Bloom filter of the same size. The filter is sized for this: blocks are added until the false
+ * positive probability of a blocked filter, with a Poisson distribution of the hashes over the blocks,
+ * does not exceed the configured one. This takes about 5 percent more bits at a probability of 1 percent,
+ * and about 20 percent more at 0.01 percent.
+ *
+ * The hashes should be well distributed, for example the output of a 64-bit hash function with a finalizer.
+ */
+public final class BloomFilter {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int BLOCK_BITS = 512;
+
+    private static final int BLOCK_LONGS = BLOCK_BITS / 64;
+
+    private static final long MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+    private static final double LN2 = Math.log(2.0d);
+
+    private final long[] bits;
+
+    private final int blockCount;
+
+    private final int hashCount;
+
+    /**
+     * Create a Bloom filter.
+     *
+     * @param expectedInsertions the expected number of insertions
+     * @param falsePositiveProbability the false positive probability at the expected number of insertions
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("expected insertions must be positive");
+        }
+        if (!(falsePositiveProbability > 0.0d && falsePositiveProbability < 1.0d)) {
+            throw new IllegalArgumentException("false positive probability must be between 0 and 1");
+        }
+        double bitCount = -expectedInsertions * Math.log(falsePositiveProbability) / (LN2 * LN2);
+        long blocks = Math.max(1L, (long) Math.ceil(bitCount / BLOCK_BITS));
+        int k = hashCount(expectedInsertions, blocks);
+        while (blocks <= Integer.MAX_VALUE / BLOCK_LONGS &&
+                falsePositiveProbability((double) expectedInsertions / blocks, k) > falsePositiveProbability) {
+            blocks += Math.max(1L, blocks / 64);
+            k = hashCount(expectedInsertions, blocks);
+        }
+        if (blocks > Integer.MAX_VALUE / BLOCK_LONGS) {
+            throw new IllegalArgumentException("too many expected insertions: " + expectedInsertions);
+        }
+        this.blockCount = (int) blocks;
+        this.bits = new long[blockCount * BLOCK_LONGS];
+        this.hashCount = k;
+    }
+
+    /**
+     * Add a hash. If the same hash is added by two threads at the same time, both may be told that it is new.
+     *
+     * @param hash the hash
+     * @return true if the hash was not contained before, false if it was probably contained
+     */
+    public boolean add(long hash) {
+        int base = block(hash);
+        long h = hash;
+        boolean added = false;
+        for (int i = 0; i < hashCount; i++) {
+            h *= MULTIPLIER;
+            int bit = (int) (h >>> 55);
+            long mask = 1L << bit;
+            int index = base + (bit >>> 6);
+            if (((long) LONGS.getOpaque(bits, index) & mask) == 0L) {
+                long previous = (long) LONGS.getAndBitwiseOr(bits, index, mask);
+                added |= (previous & mask) == 0L;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Check if a hash was probably added.
+     *
+     * @param hash the hash
+     * @return false if the hash was certainly not added, true if it was probably added
+     */
+    public boolean mightContain(long hash) {
+        int base = block(hash);
+        long h = hash;
+        for (int i = 0; i < hashCount; i++) {
+            h *= MULTIPLIER;
+            int bit = (int) (h >>> 55);
+            if (((long) LONGS.getOpaque(bits, base + (bit >>> 6)) & (1L << bit)) == 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of bits of this filter
+     */
+    public long bitSize() {
+        return 64L * bits.length;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private static int hashCount(long expectedInsertions, long blocks) {
+        double bitsPerInsertion = (double) blocks * BLOCK_BITS / expectedInsertions;
+        return (int) Math.max(1L, Math.min(16L, Math.round(bitsPerInsertion * LN2)));
+    }
+
+    /**
+     * The false positive probability of a blocked filter. The number of hashes in a block is Poisson distributed,
+     * a block with j hashes has the false positive probability of a standard Bloom filter with 512 bits.
+     *
+     * @param hashesPerBlock the mean number of hashes in a block
+     * @param hashCount the number of bits per hash
+     * @return the false positive probability
+     */
+    private static double falsePositiveProbability(double hashesPerBlock, int hashCount) {
+        double logLambda = Math.log(hashesPerBlock);
+        double logPoisson = -hashesPerBlock;
+        double logBitClear = Math.log1p(-1.0d / BLOCK_BITS);
+        double p = 0.0d;
+        int max = (int) (hashesPerBlock + 12.0d * Math.sqrt(hashesPerBlock)) + 12;
+        for (int j = 0; j <= max; j++) {
+            if (j > 0) {
+                logPoisson += logLambda - Math.log(j);
+            }
+            double bitSet = -Math.expm1(logBitClear * hashCount * j);
+            p += Math.exp(logPoisson + hashCount * Math.log(bitSet));
+        }
+        return p;
+    }
+
+    private int block(long hash) {
+        // the upper 32 bits select the block, a multiplication avoids a modulo
+        return (int) (((hash >>> 32) * blockCount) >>> 32) * BLOCK_LONGS;
+    }
+}
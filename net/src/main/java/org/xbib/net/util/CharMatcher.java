@@ -85,12 +85,12 @@ public abstract class CharMatcher {
         }
 
         @Override
-        int indexIn(CharSequence sequence) {
+        public int indexIn(CharSequence sequence) {
             return sequence.length() == 0 ? -1 : 0;
         }
 
         @Override
-        int indexIn(CharSequence sequence, int start) {
+        public int indexIn(CharSequence sequence, int start) {
             int length = sequence.length();
             checkPositionIndex(start, length);
             return start == length ? -1 : start;
@@ -154,13 +154,13 @@ public abstract class CharMatcher {
         }
 
         @Override
-        int indexIn(CharSequence sequence) {
+        public int indexIn(CharSequence sequence) {
             checkNotNull(sequence);
             return -1;
         }
 
         @Override
-        int indexIn(CharSequence sequence, int start) {
+        public int indexIn(CharSequence sequence, int start) {
             int length = sequence.length();
             checkPositionIndex(start, length);
             return -1;
@@ -223,6 +223,18 @@ public abstract class CharMatcher {
                 return c == match;
             }
 
+            @Override
+            public int indexIn(CharSequence sequence) {
+                return CharScanner.indexOf(sequence, match, 0, sequence.length());
+            }
+
+            @Override
+            public int indexIn(CharSequence sequence, int start) {
+                int length = sequence.length();
+                checkPositionIndex(start, length);
+                return CharScanner.indexOf(sequence, match, start, length);
+            }
+
             @Override
             String replaceFrom(CharSequence sequence, char replacement) {
                 return sequence.toString().replace(match, replacement);
@@ -430,7 +442,13 @@ public abstract class CharMatcher {
         return indexIn(sequence) == -1;
     }
 
-    int indexIn(CharSequence sequence) {
+    /**
+     * Find the first matching character.
+     *
+     * @param sequence the character sequence
+     * @return the offset of the first matching character, or -1
+     */
+    public int indexIn(CharSequence sequence) {
         int length = sequence.length();
         for (int i = 0; i < length; i++) {
             if (matches(sequence.charAt(i))) {
@@ -440,7 +458,15 @@ public abstract class CharMatcher {
         return -1;
     }
 
-    int indexIn(CharSequence sequence, int start) {
+    /**
+     * Find the first matching character at or after an offset. A matcher for a single character searches
+     * with {@link CharScanner#indexOf(CharSequence, char, int, int)}.
+     *
+     * @param sequence the character sequence
+     * @param start the offset to start from
+     * @return the offset of the first matching character, or -1
+     */
+    public int indexIn(CharSequence sequence, int start) {
         int length = sequence.length();
         checkPositionIndex(start, length);
         for (int i = start; i < length; i++) {
@@ -0,0 +1,99 @@
+package org.xbib.net.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Bulk scanning of characters and bytes.
+ *
+ * Most components of URLs contain no character that needs any work, so finding the first one that does
+ * should be fast. Characters in longer strings are searched with {@link String#indexOf(int, int, int)},
+ * which the JDK implements with vector instructions where available. Short ranges are searched with a
+ * plain loop, which is faster than calling the intrinsic.
+ *
+ * Bytes are read eight at a time from a byte array and searched with arithmetic on the lanes of a
+ * {@code long} ("SIMD within a register"), without a branch per byte. The position of the first match
+ * is computed exactly from the lanes.
+ */
+public final class CharScanner {
+
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The length of a range from which on {@link String#indexOf(int, int, int)} is faster than a loop.
+     */
+    private static final int INDEX_OF_THRESHOLD = 32;
+
+    private static final long BYTES_LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private static final long BYTES_ONE = 0x0101010101010101L;
+
+    private CharScanner() {
+    }
+
+    /**
+     * Find the first occurrence of a character in a range of a character sequence.
+     * @param s character sequence
+     * @param c the character
+     * @param from start offset, inclusive
+     * @param to end offset, exclusive
+     * @return the offset of the character, or -1
+     */
+    public static int indexOf(CharSequence s, char c, int from, int to) {
+        if (to - from >= INDEX_OF_THRESHOLD && s instanceof String string) {
+            return string.indexOf(c, from, to);
+        }
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the first occurrence of any of four bytes in a range of a byte array. Unused bytes can be
+     * given as duplicates.
+     * @param bytes byte array
+     * @param from start offset, inclusive
+     * @param to end offset, exclusive
+     * @param b1 first byte
+     * @param b2 second byte
+     * @param b3 third byte
+     * @param b4 fourth byte
+     * @return the offset of the first of the bytes, or {@code to}
+     */
+    public static int indexOfAny(byte[] bytes, int from, int to, byte b1, byte b2, byte b3, byte b4) {
+        long p1 = BYTES_ONE * (b1 & 0xff);
+        long p2 = BYTES_ONE * (b2 & 0xff);
+        long p3 = BYTES_ONE * (b3 & 0xff);
+        long p4 = BYTES_ONE * (b4 & 0xff);
+        int i = from;
+        while (i + 8 <= to) {
+            long word = (long) LONG_VIEW.get(bytes, i);
+            long lanes = zeroBytes(word ^ p1) | zeroBytes(word ^ p2) | zeroBytes(word ^ p3) | zeroBytes(word ^ p4);
+            if (lanes != 0L) {
+                return i + (Long.numberOfTrailingZeros(lanes) >>> 3);
+            }
+            i += 8;
+        }
+        while (i < to) {
+            byte b = bytes[i];
+            if (b == b1 || b == b2 || b == b3 || b == b4) {
+                return i;
+            }
+            i++;
+        }
+        return to;
+    }
+
+    /**
+     * Return the zero bytes of a word as the high bit of each byte, without false positives.
+     */
+    private static long zeroBytes(long word) {
+        long t = (word & BYTES_LOW_BITS) + BYTES_LOW_BITS;
+        return ~(t | word | BYTES_LOW_BITS);
+    }
+}
@@ -60,10 +60,8 @@ public final class CharUtils {
     public static boolean inRange(char[] chars, int low, int high) {
         for (int i = 0; i < chars.length; i++) {
             char n = chars[i];
-            Codepoint cp =
-                    (isHighSurrogate(n) && i + 1 < chars.length && isLowSurrogate(chars[i + 1]))
-                            ? toSupplementary(n, chars[i++]) : new Codepoint(n);
-            int c = cp.getValue();
+            int c = (isHighSurrogate(n) && i + 1 < chars.length && isLowSurrogate(chars[i + 1]))
+                    ? Character.toCodePoint(n, chars[++i]) : n;
             if (c < low || c > high) {
                 return false;
             }
@@ -193,7 +191,7 @@ public final class CharUtils {
      * @return the number of characters used to represent the codepoint
      */
     public static int length(int c) {
-        return new Codepoint(c).getCharCount();
+        return isSupplementary(c) ? 2 : 1;
     }
 
     /**
@@ -217,7 +215,7 @@ public final class CharUtils {
     private static int length(CodepointIterator ci) {
         int n = 0;
         while (ci.hasNext()) {
-            ci.next();
+            ci.nextCodePoint();
             n++;
         }
         return n;
@@ -576,9 +574,11 @@ public final class CharUtils {
      * @param profile profile
      */
     public static void verify(CodepointIterator ci, Profile profile) {
-        CodepointIterator rci = CodepointIterator.restrict(ci, profile.filter());
-        while (rci.hasNext()) {
-            rci.next();
+        while (ci.hasNext()) {
+            int cp = ci.nextCodePoint();
+            if (profile.check(cp)) {
+                throw new InvalidCharacterException(cp);
+            }
         }
     }
 
@@ -591,7 +591,30 @@ public final class CharUtils {
         if (s == null) {
             return;
         }
-        verify(CodepointIterator.forCharSequence(s), profile);
+        verify(s, 0, s.length(), profile);
+    }
+
+    /**
+     * Verifies a range of a character sequence using the specified profile, without creating
+     * a code point iterator or a substring.
+     * @param s character sequence
+     * @param start start offset, inclusive
+     * @param end end offset, exclusive
+     * @param profile profile
+     * @throws InvalidCharacterException if a code point is not valid in the profile
+     */
+    public static void verify(CharSequence s, int start, int end, Profile profile) {
+        int i = start;
+        while (i < end) {
+            char c = s.charAt(i++);
+            int cp = c;
+            if (Character.isHighSurrogate(c) && i < end && Character.isLowSurrogate(s.charAt(i))) {
+                cp = Character.toCodePoint(c, s.charAt(i++));
+            }
+            if (profile.check(cp)) {
+                throw new InvalidCharacterException(cp);
+            }
+        }
     }
 
 }
@@ -1,10 +1,17 @@
 package org.xbib.net.util;
 
+import java.util.function.IntPredicate;
+
 /**
  * Filters are used in a variety of ways to filter or verify unicode codepoints.
  */
 @FunctionalInterface
-public interface CodepointFilter {
+public interface CodepointFilter extends IntPredicate {
 
     boolean accept(int ch);
+
+    @Override
+    default boolean test(int ch) {
+        return accept(ch);
+    }
 }
@@ -2,9 +2,18 @@ package org.xbib.net.util;
 
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * Provides an iterator over Unicode Codepoints.
+ *
+ * Code points can be iterated as {@link Codepoint} objects with {@link #next()}, or as primitive int values
+ * with {@link #nextCodePoint()} and {@link #codePoints()}, which do not allocate an object per character.
  */
 public abstract class CodepointIterator implements Iterator<Codepoint> {
 
@@ -33,30 +42,62 @@ public abstract class CodepointIterator implements Iterator<Codepoint> {
         return new CharSequenceCodepointIterator(seq);
     }
 
-    public static CodepointIterator restrict(CodepointIterator ci, CodepointFilter filter) {
+    public static CodepointIterator restrict(CodepointIterator ci, IntPredicate filter) {
         return new RestrictedCodepointIterator(ci, filter, false);
     }
 
-    public static CodepointIterator restrict(CodepointIterator ci, CodepointFilter filter, boolean scanning) {
+    public static CodepointIterator restrict(CodepointIterator ci, IntPredicate filter, boolean scanning) {
         return new RestrictedCodepointIterator(ci, filter, scanning);
     }
 
-    public static CodepointIterator restrict(CodepointIterator ci, CodepointFilter filter, boolean scanning, boolean invert) {
+    public static CodepointIterator restrict(CodepointIterator ci, IntPredicate filter, boolean scanning, boolean invert) {
         return new RestrictedCodepointIterator(ci, filter, scanning, invert);
     }
 
-    public CodepointIterator restrict(CodepointFilter filter) {
+    /**
+     * Restrict a code point iterator by a codepoint filter. Kept for binary compatibility, the filter
+     * is an {@link IntPredicate}.
+     * @param ci code point iterator
+     * @param filter the filter
+     * @return code point iterator
+     */
+    public static CodepointIterator restrict(CodepointIterator ci, CodepointFilter filter) {
+        return restrict(ci, (IntPredicate) filter);
+    }
+
+    public static CodepointIterator restrict(CodepointIterator ci, CodepointFilter filter, boolean scanning) {
+        return restrict(ci, (IntPredicate) filter, scanning);
+    }
+
+    public static CodepointIterator restrict(CodepointIterator ci, CodepointFilter filter, boolean scanning,
+                                             boolean invert) {
+        return restrict(ci, (IntPredicate) filter, scanning, invert);
+    }
+
+    public CodepointIterator restrict(IntPredicate filter) {
         return restrict(this, filter);
     }
 
-    public CodepointIterator restrict(CodepointFilter filter, boolean scanning) {
+    public CodepointIterator restrict(IntPredicate filter, boolean scanning) {
         return restrict(this, filter, scanning);
     }
 
-    public CodepointIterator restrict(CodepointFilter filter, boolean scanning, boolean invert) {
+    public CodepointIterator restrict(IntPredicate filter, boolean scanning, boolean invert) {
         return restrict(this, filter, scanning, invert);
     }
 
+    public CodepointIterator restrict(CodepointFilter filter) {
+        return restrict(this, (IntPredicate) filter);
+    }
+
+    public CodepointIterator restrict(CodepointFilter filter, boolean scanning) {
+        return restrict(this, (IntPredicate) filter, scanning);
+    }
+
+    public CodepointIterator restrict(CodepointFilter filter, boolean scanning, boolean invert) {
+        return restrict(this, (IntPredicate) filter, scanning, invert);
+    }
+
     /**
      * Get the next char.
      * @return char
@@ -171,6 +212,47 @@ public abstract class CodepointIterator implements Iterator<Codepoint> {
         }
     }
 
+    /**
+     * Return the next codepoint as a primitive value. A high surrogate followed by a low surrogate is combined
+     * to a supplementary code point, an unpaired surrogate is returned as it is.
+     * @return code point
+     * @throws NoSuchElementException if there are no codepoints remaining
+     * @throws InvalidCharacterException if a high surrogate is followed by a char that is not a low surrogate
+     */
+    public int nextCodePoint() {
+        if (remaining() <= 0) {
+            throw new NoSuchElementException();
+        }
+        char c1 = get();
+        if (Character.isHighSurrogate(c1) && position() < limit()) {
+            char c2 = get();
+            if (!Character.isLowSurrogate(c2)) {
+                throw new InvalidCharacterException(c2);
+            }
+            return Character.toCodePoint(c1, c2);
+        }
+        return c1;
+    }
+
+    /**
+     * Return the remaining codepoints as a stream of primitive values. The stream consumes this iterator.
+     * @return stream of code points
+     */
+    public IntStream codePoints() {
+        PrimitiveIterator.OfInt iterator = new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return CodepointIterator.this.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return nextCodePoint();
+            }
+        };
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
     /**
      * Peek the next codepoint.
      * @return code point
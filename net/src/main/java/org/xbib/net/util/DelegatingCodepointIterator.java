@@ -54,6 +54,11 @@ public abstract class DelegatingCodepointIterator extends CodepointIterator {
         return internal.next();
     }
 
+    @Override
+    public int nextCodePoint() {
+        return internal.nextCodePoint();
+    }
+
     @Override
     public char[] nextChars() {
         return internal.nextChars();
@@ -40,8 +40,17 @@ public enum Profile {
 
     private final CodepointFilter filter;
 
+    /**
+     * The result of the filter for US-ASCII code points, looked up instead of calling the filter.
+     */
+    private final boolean[] ascii;
+
     Profile(CodepointFilter filter) {
         this.filter = filter;
+        this.ascii = new boolean[128];
+        for (int c = 0; c < 128; c++) {
+            ascii[c] = filter.accept(c);
+        }
     }
 
     public CodepointFilter filter() {
@@ -49,6 +58,6 @@ public enum Profile {
     }
 
     public boolean check(int codepoint) {
-        return filter.accept(codepoint);
+        return codepoint >= 0 && codepoint < 128 ? ascii[codepoint] : filter.accept(codepoint);
     }
 }
@@ -1,17 +1,19 @@
 package org.xbib.net.util;
 
+import java.util.function.IntPredicate;
+
 class RestrictedCodepointIterator extends DelegatingCodepointIterator {
 
-    private final CodepointFilter filter;
+    private final IntPredicate filter;
     private final boolean scanningOnly;
     private final boolean notset;
 
-    RestrictedCodepointIterator(CodepointIterator internal, CodepointFilter filter, boolean scanningOnly) {
+    RestrictedCodepointIterator(CodepointIterator internal, IntPredicate filter, boolean scanningOnly) {
         this(internal, filter, scanningOnly, false);
     }
 
     RestrictedCodepointIterator(CodepointIterator internal,
-                                CodepointFilter filter,
+                                IntPredicate filter,
                                 boolean scanningOnly,
                                 boolean notset) {
         super(internal);
@@ -25,8 +27,7 @@ class RestrictedCodepointIterator extends DelegatingCodepointIterator {
         boolean b = super.hasNext();
         if (scanningOnly) {
             try {
-                int cp = super.peek(super.position()).getValue();
-                if (b && cp != -1 && check(cp)) {
+                if (b && check(peekCodePoint(super.position()))) {
                     return false;
                 }
             } catch (InvalidCharacterException e) {
@@ -51,8 +52,38 @@ class RestrictedCodepointIterator extends DelegatingCodepointIterator {
         return cp;
     }
 
+    /**
+     * Return the next codepoint, or -1 if this iterator is scanning only and the codepoint is not accepted.
+     * @return code point
+     */
+    @Override
+    public int nextCodePoint() {
+        int cp = super.nextCodePoint();
+        if (check(cp)) {
+            if (scanningOnly) {
+                super.position(super.position() - Character.charCount(cp));
+                return -1;
+            } else {
+                throw new InvalidCharacterException(cp);
+            }
+        }
+        return cp;
+    }
+
     private boolean check(int cp) {
-        return notset == !filter.accept(cp);
+        return notset == !filter.test(cp);
+    }
+
+    private int peekCodePoint(int index) {
+        char c = get(index);
+        if (Character.isHighSurrogate(c) && index + 1 < limit()) {
+            char c2 = get(index + 1);
+            if (!Character.isLowSurrogate(c2)) {
+                throw new InvalidCharacterException(c2);
+            }
+            return Character.toCodePoint(c, c2);
+        }
+        return c;
     }
 
     @Override
@@ -67,7 +98,7 @@ class RestrictedCodepointIterator extends DelegatingCodepointIterator {
                     throw new InvalidCharacterException(chars[0]);
                 }
             } else if (chars.length == 2) {
-                int cp = CharUtils.toSupplementary(chars[0], chars[1]).getValue();
+                int cp = Character.toCodePoint(chars[0], chars[1]);
                 if (check(cp)) {
                     if (scanningOnly) {
                         super.position(super.position() - 2);
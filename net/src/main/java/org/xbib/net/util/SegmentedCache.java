@@ -0,0 +1,233 @@
+package org.xbib.net.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent, size-bounded least recently used cache.
+ *
+ * The cache is split into segments, each one a map in access order guarded by its own lock, so a lookup
+ * is a hash probe in one segment. When a segment is full, the least recently used entry is evicted.
+ * With TinyLFU admission, a new entry is only admitted if it was requested more often than the entry
+ * it would evict, as estimated by a small count-min sketch. This keeps one-time keys from flushing
+ * frequently requested keys out of the cache.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class SegmentedCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+
+    private final int segmentMask;
+
+    /**
+     * Create a cache.
+     *
+     * @param maximumSize the maximum number of entries
+     * @param tinyLfu true if new entries are admitted by their estimated frequency
+     */
+    @SuppressWarnings("unchecked")
+    public SegmentedCache(int maximumSize, boolean tinyLfu) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximum size must be positive: " + maximumSize);
+        }
+        int n = 1;
+        while (n < MAX_SEGMENTS && n * 2 * 32 <= maximumSize) {
+            n *= 2;
+        }
+        this.segments = (Segment<K, V>[]) new Segment<?, ?>[n];
+        for (int i = 0; i < n; i++) {
+            int capacity = maximumSize / n + (i < maximumSize % n ? 1 : 0);
+            segments[i] = new Segment<>(capacity, tinyLfu);
+        }
+        this.segmentMask = n - 1;
+    }
+
+    /**
+     * Get a value.
+     *
+     * @param key the key
+     * @return the value, or null if the key is not in the cache
+     */
+    public V get(K key) {
+        int h = key.hashCode();
+        return segment(h).get(key, h);
+    }
+
+    /**
+     * Put a value, unless the key is already in the cache or the value is not admitted.
+     *
+     * @param key the key
+     * @param value the value
+     * @return true if an entry was evicted
+     */
+    public boolean put(K key, V value) {
+        int h = key.hashCode();
+        return segment(h).put(key, h, value);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private Segment<K, V> segment(int h) {
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    private static final class Segment<K, V> {
+
+        private final ReentrantLock lock;
+
+        private final LinkedHashMap<K, V> map;
+
+        private final int capacity;
+
+        private final FrequencySketch sketch;
+
+        Segment(int capacity, boolean tinyLfu) {
+            this.lock = new ReentrantLock();
+            this.map = new LinkedHashMap<>(16, 0.75f, true);
+            this.capacity = capacity;
+            this.sketch = tinyLfu ? new FrequencySketch(capacity) : null;
+        }
+
+        V get(K key, int hash) {
+            lock.lock();
+            try {
+                if (sketch != null) {
+                    sketch.increment(hash);
+                }
+                return map.get(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean put(K key, int hash, V value) {
+            lock.lock();
+            try {
+                if (map.containsKey(key)) {
+                    return false;
+                }
+                boolean evicted = false;
+                if (map.size() >= capacity) {
+                    Iterator<Map.Entry<K, V>> iterator = map.entrySet().iterator();
+                    K victim = iterator.next().getKey();
+                    if (sketch != null && sketch.frequency(hash) <= sketch.frequency(victim.hashCode())) {
+                        return false;
+                    }
+                    iterator.remove();
+                    evicted = true;
+                }
+                map.put(key, value);
+                return evicted;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return map.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                map.clear();
+                if (sketch != null) {
+                    sketch.clear();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * A count-min sketch with four 4-bit counters per key, packed into longs. All counters are halved
+     * after a number of increments proportional to the capacity, so old popularity fades out.
+     */
+    private static final class FrequencySketch {
+
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private static final int[] SEEDS = { 0x97cb3127, 0xb2bd1f6b, 0x8ac4b7e5, 0xc2b2ae35 };
+
+        private final long[] table;
+
+        private final int tableMask;
+
+        private final int sampleSize;
+
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int n = Integer.highestOneBit(Math.max(capacity, 4) - 1) << 1;
+            this.table = new long[n];
+            this.tableMask = n - 1;
+            this.sampleSize = 10 * n;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = index(hash, i);
+                int shift = offset(hash, i) << 2;
+                if (((table[index] >>> shift) & 0xfL) < 15) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & RESET_MASK;
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = 15;
+            for (int i = 0; i < 4; i++) {
+                int shift = offset(hash, i) << 2;
+                frequency = Math.min(frequency, (int) ((table[index(hash, i)] >>> shift) & 0xfL));
+            }
+            return frequency;
+        }
+
+        void clear() {
+            Arrays.fill(table, 0L);
+            additions = 0;
+        }
+
+        private int index(int hash, int i) {
+            int h = (hash + SEEDS[i]) * SEEDS[i];
+            return (h ^ (h >>> 16)) & tableMask;
+        }
+
+        private static int offset(int hash, int i) {
+            return (hash >>> (i << 3)) & 0xf;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.xbib.net;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.net.buffer.DataBuffer;
+import org.xbib.net.buffer.DefaultDataBufferFactory;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FormUrlEncodedDecoderTest {
+
+    private static final String BODY = "a=b+c&d=%2B&e&=f&g=h=i&j=J%C3%B6rg&k=%zz&l=%4&m=%";
+
+    @Test
+    void testSameAsString() throws Exception {
+        Parameter expected = Parameter.builder()
+                .domain(Parameter.Domain.FORM)
+                .addPercentEncodedBody(BODY)
+                .build();
+        byte[] bytes = BODY.getBytes(StandardCharsets.US_ASCII);
+        // feed in chunks of every size
+        for (int chunk = 1; chunk <= bytes.length; chunk++) {
+            ParameterBuilder builder = Parameter.builder().domain(Parameter.Domain.FORM);
+            FormUrlEncodedDecoder decoder = new FormUrlEncodedDecoder(builder);
+            for (int i = 0; i < bytes.length; i += chunk) {
+                decoder.decode(ByteBuffer.wrap(bytes, i, Math.min(chunk, bytes.length - i)));
+            }
+            decoder.end();
+            assertEquals(expected.toString(), builder.build().toString(), "chunk size " + chunk);
+        }
+        Parameter parameter = Parameter.builder()
+                .domain(Parameter.Domain.FORM)
+                .addPercentEncodedBody(new ByteArrayInputStream(bytes))
+                .build();
+        assertEquals(expected.toString(), parameter.toString());
+        assertEquals("Jörg", parameter.get("j", Parameter.Domain.FORM));
+        assertNull(parameter.get("e", Parameter.Domain.FORM));
+    }
+
+    @Test
+    void testDataBufferAndChannel() throws Exception {
+        ParameterBuilder builder = Parameter.builder().domain(Parameter.Domain.FORM);
+        DataBuffer dataBuffer = DefaultDataBufferFactory.getInstance().wrap("x=1&y=".getBytes(StandardCharsets.US_ASCII));
+        FormUrlEncodedDecoder decoder = new FormUrlEncodedDecoder(builder);
+        decoder.decode(dataBuffer);
+        assertEquals(0, dataBuffer.readableByteCount());
+        decoder.decode(Channels.newChannel(new ByteArrayInputStream("2&z=3".getBytes(StandardCharsets.US_ASCII))));
+        Parameter parameter = builder.build();
+        assertEquals(List.of("1"), parameter.getAll("x", Parameter.Domain.FORM));
+        assertEquals("2", parameter.get("y", Parameter.Domain.FORM));
+        assertTrue(parameter.containsKey("z", Parameter.Domain.FORM));
+    }
+
+    @Test
+    void testLimits() {
+        byte[] bytes = "a=0123456789&b=1".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(IllegalArgumentException.class, () ->
+                new FormUrlEncodedDecoder(Parameter.builder(), StandardCharsets.UTF_8, 8)
+                        .decode(ByteBuffer.wrap(bytes)));
+        assertThrows(IllegalArgumentException.class, () ->
+                new FormUrlEncodedDecoder(Parameter.builder().byteLimit(8))
+                        .decode(ByteBuffer.wrap(bytes)));
+    }
+}
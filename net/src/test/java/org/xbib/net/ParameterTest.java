@@ -1,6 +1,7 @@
 package org.xbib.net;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ParameterTest {
@@ -44,6 +46,77 @@ public class ParameterTest {
         assertEquals(List.of("World", "World", "World"), parameter.getAll("Hello", Parameter.Domain.QUERY));
     }
 
+    @Test
+    public void testLargeParameter() throws Exception {
+        ParameterBuilder builder = Parameter.builder()
+                .domain(Parameter.Domain.FORM)
+                .enableDuplicates();
+        for (int i = 0; i < 300; i++) {
+            builder.add("field" + i, "value" + i);
+        }
+        builder.add("field7", "again");
+        Parameter parameter = builder.build();
+        assertTrue(parameter.containsKey("field0", Parameter.Domain.FORM));
+        assertTrue(parameter.containsKey("field299", Parameter.Domain.FORM));
+        assertFalse(parameter.containsKey("field300", Parameter.Domain.FORM));
+        assertFalse(parameter.containsKey("field7", Parameter.Domain.QUERY));
+        assertEquals("value123", parameter.get("field123", Parameter.Domain.FORM));
+        assertEquals("value123", parameter.getAsString("field123", Parameter.Domain.FORM));
+        assertEquals(List.of("value7", "again"), parameter.getAll("field7", Parameter.Domain.FORM));
+        assertEquals(List.of(), parameter.getAll("unknown", Parameter.Domain.FORM));
+        assertEquals(301, parameter.getAllInDomain(Parameter.Domain.FORM).size());
+    }
+
+    @Test
+    public void testManyDuplicates() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append("a").append(i % 1000).append("=b&");
+        }
+        Parameter parameter = Parameter.builder()
+                .domain(Parameter.Domain.FORM)
+                .addPercentEncodedBody(sb.toString())
+                .build();
+        assertEquals(1000, parameter.getAllInDomain(Parameter.Domain.FORM).size());
+        assertEquals(List.of("b"), parameter.getAll("a999", Parameter.Domain.FORM));
+    }
+
+    @Test
+    public void testPercentEncodedBody() throws Exception {
+        Parameter parameter = Parameter.builder()
+                .domain(Parameter.Domain.FORM)
+                .addPercentEncodedBody("a=b+c&d=%2B&e&=f&g=h=i")
+                .build();
+        assertEquals("b c", parameter.get("a", Parameter.Domain.FORM));
+        assertEquals("+", parameter.get("d", Parameter.Domain.FORM));
+        assertTrue(parameter.containsKey("e", Parameter.Domain.FORM));
+        assertEquals("h=i", parameter.get("g", Parameter.Domain.FORM));
+        assertEquals(4, parameter.getAllInDomain(Parameter.Domain.FORM).size());
+    }
+
+    @Test
+    public void testLimits() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Parameter.builder()
+                .byteLimit(10)
+                .addPercentEncodedBody("a=1&b=2&c=3"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Parameter.builder()
+                .byteLimit(10)
+                .add("a=1&b=2&c=3", StandardCharsets.UTF_8));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Parameter.builder()
+                .keyLengthLimit(3)
+                .add("abcd=1", StandardCharsets.UTF_8));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Parameter.builder()
+                .limit(2)
+                .addPercentEncodedBody("a=1&b=2&c=3"));
+        Parameter parameter = Parameter.builder()
+                .byteLimit(11)
+                .keyLengthLimit(1)
+                .limit(3)
+                .add("a=1&b=2&c=3", StandardCharsets.UTF_8)
+                .build();
+        assertTrue(parameter.hasElements());
+    }
+
     @Test
     public void testHttpHeaderParameter() throws Exception {
         Parameter parameter = Parameter.builder()
@@ -156,6 +229,29 @@ public class ParameterTest {
         });
     }
 
+    @Test
+    void testCollidingKeys() {
+        // all keys made of the blocks "Aa" and "BB" have the same string hash code
+        ParameterBuilder builder = Parameter.builder().domain(Parameter.Domain.QUERY);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1 << 15; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < 15; j++) {
+                sb.append((i & (1 << j)) != 0 ? "Aa" : "BB");
+            }
+            keys.add(sb.toString());
+            builder.add(sb.toString(), Integer.toString(i));
+        }
+        assertEquals(keys.get(0).hashCode(), keys.get(keys.size() - 1).hashCode());
+        Parameter parameter = builder.build();
+        assertTimeout(Duration.ofSeconds(2), () -> {
+            for (int i = 0; i < keys.size(); i += 97) {
+                assertEquals(Integer.toString(i), parameter.get(keys.get(i), Parameter.Domain.QUERY));
+            }
+            assertFalse(parameter.containsKey("AaAa", Parameter.Domain.QUERY));
+        });
+    }
+
     @Test
     void testDomains() throws ParameterException {
         Parameter p1 = Parameter.builder().domain(Parameter.Domain.QUERY).add("a", "a").build();
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.xbib.net.PathNormalizer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class PathNormalizerTest {
 
@@ -72,4 +73,20 @@ class PathNormalizerTest {
     void doNotnormalizeEmbeddedSemicolon() {
         assertEquals("/auth/cert;foo=bar/smartcard.xhtml", PathNormalizer.normalize("/auth/cert;foo=bar/smartcard.xhtml"));
     }
+
+    @Test
+    void normalizePathWithTrailingSlash() {
+        assertEquals("/a/", PathNormalizer.normalize("/a/b/.."));
+        assertEquals("/a/", PathNormalizer.normalize("//a//b//..//"));
+        assertEquals("/a", PathNormalizer.normalize("/a/b/../."));
+        assertEquals("a/c/", PathNormalizer.normalize("a/./b/../c/"));
+    }
+
+    @Test
+    void normalizedPathIsReturned() {
+        String path = "/a/b.c/..d/";
+        assertSame(path, PathNormalizer.normalize(path));
+        path = "a/b";
+        assertSame(path, PathNormalizer.normalize(path));
+    }
 }
@@ -3,6 +3,8 @@ package org.xbib.net;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.MalformedInputException;
 import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnmappableCharacterException;
@@ -14,7 +16,9 @@ import java.util.stream.Collectors;
 import static java.lang.Character.isHighSurrogate;
 import static java.lang.Character.isLowSurrogate;
 import static java.lang.Integer.toHexString;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.fail;
 
 class PercentDecoderTest {
@@ -35,6 +39,61 @@ class PercentDecoderTest {
         assertEquals("#", decoder.decode("%23"));
     }
 
+    @Test
+    void testDecodeRange() throws Exception {
+        assertEquals("Jörg", decoder.decode("/path/J%C3%B6rg?q", 6, 15));
+        assertEquals("", decoder.decode("abc", 1, 1));
+    }
+
+    @Test
+    void testDecodeWithoutPercentReturnsInput() throws Exception {
+        String s = "/path/to/file";
+        assertSame(s, decoder.decode(s));
+    }
+
+    @Test
+    void testDecodePlusAsSpace() throws Exception {
+        assertEquals("a b+c", decoder.decode("?a+b%2Bc", 1, 8, true));
+        assertEquals("a+b", decoder.decode("a+b", 0, 3, false));
+    }
+
+    @Test
+    void testDecodeToBytes() throws Exception {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(16);
+        int n = decoder.decodeToBytes("a%00%FF+\u00f6", 0, 9, true, byteBuffer);
+        assertEquals(6, n);
+        byte[] bytes = new byte[n];
+        byteBuffer.flip().get(bytes);
+        assertArrayEquals(new byte[] { 'a', 0, (byte) 0xff, ' ', (byte) 0xc3, (byte) 0xb6 }, bytes);
+    }
+
+    @Test
+    void testMalformedUtf8() {
+        Assertions.assertThrows(MalformedInputException.class, () -> decoder.decode("%C3%28"));
+        Assertions.assertThrows(MalformedInputException.class, () -> decoder.decode("%ED%A0%80"));
+        Assertions.assertThrows(MalformedInputException.class, () -> decoder.decode("%C3x"));
+    }
+
+    @Test
+    void testRandomBytesReplacement() throws Exception {
+        PercentDecoder replacingDecoder = new PercentDecoder(StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE));
+        Random rand = new Random();
+        long seed = rand.nextLong();
+        rand.setSeed(seed);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            byte[] bytes = new byte[1 + rand.nextInt(16)];
+            rand.nextBytes(bytes);
+            sb.setLength(0);
+            for (byte b : bytes) {
+                sb.append('%').append(String.format("%02X", b & 0xff));
+            }
+            assertEquals(new String(bytes, StandardCharsets.UTF_8), replacingDecoder.decode(sb), "seed: " + seed);
+        }
+    }
+
     @Test
     void testIncompletePercentPairNoNumbers() {
         Assertions.assertThrows(MalformedInputException.class, () ->{
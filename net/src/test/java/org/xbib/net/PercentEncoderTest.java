@@ -3,11 +3,15 @@ package org.xbib.net;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.MalformedInputException;
 import java.nio.charset.StandardCharsets;
 import java.util.BitSet;
 
 import static java.nio.charset.CodingErrorAction.REPLACE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class PercentEncoderTest {
 
@@ -80,4 +84,37 @@ class PercentEncoderTest {
         PercentEncoder queryParamEncoder = PercentEncoders.getQueryParamEncoder(StandardCharsets.UTF_8);
         assertEquals("%20a%20%3D%20b%20", queryParamEncoder.encode(" a = b "));
     }
+
+    @Test
+    void testSafeInputIsReturned() throws Exception {
+        String s = "abc123";
+        assertSame(s, alnum.encode(s));
+    }
+
+    @Test
+    void testEncodeToStringBuilder() throws Exception {
+        StringBuilder sb = new StringBuilder("x=");
+        alnum.encode("J\u00f6rg 1", sb);
+        assertEquals("x=J%C3%B6rg%201", sb.toString());
+    }
+
+    @Test
+    void testEncodeToByteBuffer() throws Exception {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(32);
+        alnum.encode("snowman\u2603", byteBuffer);
+        byteBuffer.flip();
+        assertEquals("snowman%E2%98%83", StandardCharsets.US_ASCII.decode(byteBuffer).toString());
+    }
+
+    @Test
+    void testLoneLowSurrogate() {
+        assertThrows(MalformedInputException.class, () ->
+                PercentEncoders.getPathEncoder(StandardCharsets.UTF_8).encode("a\udd1e"));
+    }
+
+    @Test
+    void testSharedEncoder() {
+        assertSame(PercentEncoders.getPathEncoder(StandardCharsets.UTF_8),
+                PercentEncoders.getPathEncoder(StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,87 @@
+package org.xbib.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.IDN;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PublicSuffixListTest {
+
+    private final PublicSuffixList list = PublicSuffixList.getInstance();
+
+    @Test
+    void testRegistrableDomain() {
+        assertNull(list.getRegistrableDomain("com"));
+        assertEquals("example.com", list.getRegistrableDomain("example.com"));
+        assertEquals("example.com", list.getRegistrableDomain("a.b.www.example.com"));
+        assertEquals("example.co.uk", list.getRegistrableDomain("www.example.co.uk"));
+        assertEquals("Example.COM", list.getRegistrableDomain("WWW.Example.COM"));
+        assertEquals("example.com", list.getRegistrableDomain("www.example.com."));
+        assertEquals("example.example", list.getRegistrableDomain("b.example.example"));
+        assertEquals(4, list.registrableDomain("www.example.com"));
+        assertTrue(list.isPublicSuffix("co.uk"));
+        assertFalse(list.isPublicSuffix("example.co.uk"));
+    }
+
+    @Test
+    void testWildcardAndException() {
+        assertNull(list.getRegistrableDomain("ck"));
+        assertNull(list.getRegistrableDomain("test.ck"));
+        assertEquals("b.test.ck", list.getRegistrableDomain("a.b.test.ck"));
+        assertEquals("www.ck", list.getRegistrableDomain("www.ck"));
+        assertEquals("www.ck", list.getRegistrableDomain("www.www.ck"));
+        assertNull(list.getRegistrableDomain("c.kobe.jp"));
+        assertEquals("b.c.kobe.jp", list.getRegistrableDomain("a.b.c.kobe.jp"));
+        assertEquals("city.kobe.jp", list.getRegistrableDomain("www.city.kobe.jp"));
+    }
+
+    @Test
+    void testPrivateDomains() {
+        assertEquals("foo.github.io", list.getRegistrableDomain("www.foo.github.io"));
+        String host = "www.foo.github.io";
+        assertEquals(8, list.registrableDomain(host, false));
+        assertEquals(8, list.publicSuffix(host, true));
+        assertEquals(15, list.publicSuffix(host, false));
+    }
+
+    @Test
+    void testIdn() {
+        assertEquals("食狮.公司.cn", list.getRegistrableDomain("www.食狮.公司.cn"));
+        assertNull(list.getRegistrableDomain("公司.cn"));
+        String punycode = IDN.toASCII("www.食狮.公司.cn");
+        assertEquals("xn--85x722f.xn--55qx5d.cn", list.getRegistrableDomain(punycode));
+        assertNull(list.getRegistrableDomain(IDN.toASCII("公司.cn")));
+    }
+
+    @Test
+    void testInvalid() {
+        assertEquals(-1, list.registrableDomain(""));
+        assertEquals(-1, list.registrableDomain("192.168.1.1"));
+        assertEquals(-1, list.registrableDomain("[2001:db8::1]"));
+        assertEquals(-1, list.registrableDomain("2001:db8::1"));
+        assertEquals(-1, list.registrableDomain(".com"));
+        assertEquals(-1, list.registrableDomain("example..com"));
+        assertEquals(-1, list.registrableDomain("www..example.com"));
+        assertEquals(-1, list.registrableDomain(".example.com"));
+        assertEquals(-1, list.publicSuffix(".example.com", true));
+        assertNull(list.getRegistrableDomain(".example.com"));
+        assertNull(list.getRegistrableDomain(".example.example"));
+        assertNull(list.getRegistrableDomain("..example.com"));
+    }
+
+    @Test
+    void testLoad() throws IOException {
+        String rules = "// comment\ncom\n*.example.com\n!www.example.com\n";
+        PublicSuffixList custom = PublicSuffixList.load(new ByteArrayInputStream(rules.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("a.b.example.com", custom.getRegistrableDomain("x.a.b.example.com"));
+        assertEquals("www.example.com", custom.getRegistrableDomain("www.example.com"));
+        assertEquals("example.org", custom.getRegistrableDomain("www.example.org"));
+    }
+}
@@ -0,0 +1,170 @@
+package org.xbib.net;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.net.resolver.HostResolvers;
+
+import java.net.InetAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class URLCacheTest {
+
+    @Test
+    void testHitAndMiss() {
+        URLCache cache = new URLCache(100);
+        URL url = cache.create("http://example.com/a?b=c");
+        assertEquals("http://example.com/a?b=c", url.toExternalForm());
+        assertSame(url, cache.create("http://example.com/a?b=c"));
+        assertEquals(1L, cache.getHitCount());
+        assertEquals(1L, cache.getMissCount());
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testLruEviction() {
+        URLCache cache = new URLCache(2);
+        URL a = cache.create("http://a.example.com");
+        cache.create("http://b.example.com");
+        assertSame(a, cache.create("http://a.example.com"));
+        cache.create("http://c.example.com");
+        assertEquals(2, cache.size());
+        assertEquals(1L, cache.getEvictionCount());
+        assertSame(a, cache.create("http://a.example.com"));
+    }
+
+    @Test
+    void testTinyLfuAdmission() {
+        URLCache cache = new URLCache(1, URLCache.Eviction.TINY_LFU);
+        URL a = cache.create("http://a.example.com");
+        for (int i = 0; i < 5; i++) {
+            assertSame(a, cache.create("http://a.example.com"));
+        }
+        // requested only once, not admitted
+        cache.create("http://b.example.com");
+        assertSame(a, cache.create("http://a.example.com"));
+        assertEquals(0L, cache.getEvictionCount());
+    }
+
+    @Test
+    void testInvalidInput() {
+        URLCache cache = new URLCache(10);
+        assertThrows(IllegalArgumentException.class, () -> cache.create("http://example.com:99999"));
+        assertNull(cache.get("http://example.com:99999", false, true));
+        assertEquals(0, cache.size());
+        assertSame(URL.nullUrl(), cache.create(""));
+    }
+
+    @Test
+    void testUrlCache() {
+        URLCache cache = new URLCache(10);
+        URL.cache(cache);
+        try {
+            URL url = URL.create("http://example.com/path");
+            assertSame(url, URL.create("http://example.com/path"));
+            assertEquals(1L, cache.getHitCount());
+        } finally {
+            URL.cache(null);
+        }
+    }
+
+    @Test
+    void testSharedUrl() {
+        URLCache cache = new URLCache(10);
+        URL url = cache.create("http://example.com/a?b=c");
+        assertThrows(IllegalStateException.class, url::mutator);
+        assertEquals("http://example.com/a?b=c", URLCanonicalizer.getDefault().toCanonicalForm(url));
+        assertEquals(url, URLCodec.decode(URLCodec.encode(url)));
+        URLBuilder builder = URL.create("http://example.com/a?b=c").mutator();
+        assertEquals("http://example.com/a?b=c#f", builder.fragment("f").build().toExternalForm());
+    }
+
+    @Test
+    void testResolveIsNotCached() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        HostResolvers.setDefault(hostname -> InetAddress.getByAddress(hostname,
+                new byte[] { 10, 0, 0, (byte) count.incrementAndGet() }));
+        try {
+            URLCache cache = new URLCache(10);
+            URL url1 = cache.from("http://example.com/a");
+            URL url2 = cache.from("http://example.com/a");
+            assertEquals("10.0.0.1", url1.getBuilder().hostAddress);
+            assertEquals("10.0.0.2", url2.getBuilder().hostAddress);
+            assertEquals(url1, url2);
+            assertEquals(1L, cache.getHitCount());
+            assertEquals(1, cache.size());
+            assertNull(cache.create("http://example.com/a").getBuilder().hostAddress);
+            assertThrows(IllegalStateException.class, url2::mutator);
+            assertNull(cache.from("mailto:joe@example.com").getHost());
+            assertEquals(2, count.get());
+        } finally {
+            HostResolvers.setDefault(null);
+        }
+    }
+
+    @Test
+    void testBlankInput() {
+        URLCache cache = new URLCache(10);
+        assertSame(URL.nullUrl(), cache.create("  \t"));
+        assertSame(URL.nullUrl(), cache.from("  \t"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testConcurrentDecode() throws Exception {
+        URLCache cache = new URLCache(10);
+        String input = "http://example.com/%C3%A4/b%20c/%E2%82%AC?x=%C3%B6#%C3%BC";
+        URL url = cache.create(input);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int t = 0; t < futures.length; t++) {
+                futures[t] = executorService.submit(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        assertEquals("/\u00e4/b c/\u20ac", url.getDecodedPath());
+                        assertEquals("x=\u00f6", url.getDecodedQuery());
+                        assertEquals("\u00fc", url.getDecodedFragment());
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    void testConcurrentAccess() throws Exception {
+        URLCache cache = new URLCache(64);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[4];
+            for (int t = 0; t < futures.length; t++) {
+                futures[t] = executorService.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        assertNotNull(cache.create("http://example.com/" + (i % 100)));
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        assertEquals(4000L, cache.getHitCount() + cache.getMissCount());
+        assertTrue(cache.size() <= 64);
+    }
+}
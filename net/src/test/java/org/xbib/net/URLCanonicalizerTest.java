@@ -0,0 +1,85 @@
+package org.xbib.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class URLCanonicalizerTest {
+
+    @Test
+    void testDefault() {
+        URLCanonicalizer canonicalizer = URLCanonicalizer.getDefault();
+        assertEquals("http://example.com/a/c?x=1",
+                canonicalizer.toCanonicalForm(URL.from("HTTP://Example.COM:80/a/./b/../c?x=1#frag")));
+        assertEquals("https://example.com/~foo/",
+                canonicalizer.toCanonicalForm(URL.from("https://example.com:443/%7efoo/")));
+        assertEquals("https://example.com:8443/",
+                canonicalizer.toCanonicalForm(URL.from("https://example.com:8443")));
+        assertEquals("mailto:joe@example.com",
+                canonicalizer.toCanonicalForm(URL.from("MAILTO:joe@example.com")));
+        assertEquals(URL.from("http://example.com/a/c?x=1"),
+                canonicalizer.canonicalize(URL.from("http://EXAMPLE.com/a//c?x=1")));
+    }
+
+    @Test
+    void testQueryParams() {
+        URLCanonicalizer canonicalizer = URLCanonicalizer.builder()
+                .sortQueryParams(true)
+                .removeTrackingParams()
+                .removeQueryParams("session")
+                .removeFragment(false)
+                .build();
+        assertEquals("http://example.com/?a=1&a=2&b=%26&c#f", canonicalizer.toCanonicalForm(
+                URL.from("http://example.com/?utm_source=x&b=%26&a=2&session=42&c&gclid=y&a=1#f")));
+        assertEquals("http://example.com/",
+                canonicalizer.toCanonicalForm(URL.from("http://example.com/?utm_medium=email")));
+    }
+
+    @Test
+    void testQueryEncoding() throws Exception {
+        URLCanonicalizer canonicalizer = URLCanonicalizer.builder().sortQueryParams(true).build();
+        assertEquals("http://example.com/?q=a+b", canonicalizer.toCanonicalForm(URL.from("http://example.com/?q=a+b")));
+        assertEquals("http://example.com/?q=a%2Bb",
+                canonicalizer.toCanonicalForm(URL.from("http://example.com/?q=a%2bb")));
+        assertNotEquals(canonicalizer.hash(URL.from("http://example.com/?q=a+b")),
+                canonicalizer.hash(URL.from("http://example.com/?q=a%2Bb")));
+        assertNotEquals(canonicalizer.toCanonicalForm(URL.from("http://example.com/?a=%26&b")),
+                canonicalizer.toCanonicalForm(URL.from("http://example.com/?a=&&b")));
+        assertEquals("http://example.com/?a=~A&b=%C3%A4", canonicalizer.toCanonicalForm(
+                URL.from("http://example.com/?b=%c3%a4&a=%7e%41")));
+        URL url = canonicalizer.canonicalize(URL.from("http://example.com/?b=%c3%a4&a=%7e%41"));
+        assertEquals("~A", url.getQueryParams().get("a", Parameter.Domain.QUERY));
+    }
+
+    @Test
+    void testHash() {
+        URLCanonicalizer canonicalizer = URLCanonicalizer.getDefault();
+        assertEquals(canonicalizer.hash(URL.from("http://example.com/a")),
+                canonicalizer.hash(URL.from("HTTP://EXAMPLE.COM:80/a#x")));
+        assertNotEquals(canonicalizer.hash(URL.from("http://example.com/a")),
+                canonicalizer.hash(URL.from("http://example.com/b")));
+    }
+
+    @Test
+    void testDuplicateFilter() {
+        URLDuplicateFilter filter = new URLDuplicateFilter(100000, 0.001d);
+        assertTrue(filter.add(URL.from("http://example.com/a")));
+        assertFalse(filter.add(URL.from("http://EXAMPLE.com:80/a#top")));
+        assertTrue(filter.mightContain(URL.from("http://example.com/a")));
+        List<URL> urls = IntStream.range(0, 200000)
+                .mapToObj(i -> URL.from("http://example.com/page/" + (i % 50000)))
+                .collect(Collectors.toList());
+        long distinct = filter.distinct(urls.parallelStream()).count();
+        // false positives reduce the count, concurrent adds of the same URL can increase it
+        assertTrue(Math.abs(distinct - 50000) < 100, Long.toString(distinct));
+        assertEquals(200002, filter.getCount());
+        assertEquals(200002 - 1 - distinct, filter.getDuplicateCount());
+    }
+}
@@ -2,12 +2,19 @@ package org.xbib.net;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.xbib.net.buffer.DataBuffer;
+import org.xbib.net.buffer.DefaultDataBufferFactory;
+import org.xbib.net.resolver.LocalHostResolver;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.stream.StreamSupport;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -496,6 +503,87 @@ class URLParserTest {
         assertEquals("[a=http://example.com]", queryParameters.toString());
     }
 
+    @Test
+    void testParseByteBuffer() throws Exception {
+        String s = "http://user@example.com:8080/path/a%20b;m=1?x=1&y=%C3%A4#frag";
+        ByteBuffer byteBuffer = ByteBuffer.wrap(("GET " + s + " HTTP/1.1").getBytes(StandardCharsets.US_ASCII));
+        byteBuffer.position(4).limit(4 + s.length());
+        URL url = URL.parser().parse(byteBuffer);
+        assertEquals(4, byteBuffer.position());
+        assertEquals(URL.parser().parse(s, false).toExternalForm(), url.toExternalForm());
+        assertEquals("example.com", url.getHost());
+        assertEquals(8080, url.getPort());
+        assertEquals("/path/a b;m=1", url.getDecodedPath());
+        assertEquals("ä", url.getQueryParams().getAll("y", Parameter.Domain.QUERY).get(0));
+        assertEquals("frag", url.getFragment());
+        assertEquals(URL.parser().parse(s, false).getSchemeSpecificPart(), url.getSchemeSpecificPart());
+        assertEquals("//user@example.com:8080/path/a%20b;m=1?x=1&y=%C3%A4#frag", url.getSchemeSpecificPart());
+    }
+
+    @Test
+    void testParseDirectByteBuffer() throws Exception {
+        byte[] bytes = "urn:isbn:0451450523".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        URL url = URL.parser().parse(byteBuffer);
+        assertEquals("urn", url.getScheme());
+        assertEquals("isbn:0451450523", url.getSchemeSpecificPart());
+        assertEquals("urn:isbn:0451450523", url.toExternalForm());
+    }
+
+    @Test
+    void testParseDataBuffer() throws Exception {
+        byte[] bytes = "xxx/a/b?c=d".getBytes(StandardCharsets.US_ASCII);
+        DataBuffer dataBuffer = DefaultDataBufferFactory.getInstance().wrap(bytes);
+        URL url = URL.parser().parse(dataBuffer, 3, bytes.length - 3);
+        assertEquals("/a/b", url.getPath());
+        assertEquals("c=d", url.getQuery());
+        assertEquals(URL.nullUrl(), URL.parser().parse(dataBuffer, 0, 0));
+        byte[] http = "http://host/p".getBytes(StandardCharsets.US_ASCII);
+        URL httpUrl = URL.parser().parse(DefaultDataBufferFactory.getInstance().wrap(http), 0, http.length);
+        assertEquals("//host/p", httpUrl.getSchemeSpecificPart());
+    }
+
+    @Test
+    void testParseWithHostResolver() throws Exception {
+        LocalHostResolver hostResolver = new LocalHostResolver().add("example.com", "192.0.2.1");
+        URL url = URL.parser().hostResolver(hostResolver).parse("http://example.com/path");
+        assertEquals("example.com", url.getHost());
+        assertEquals(ProtocolVersion.IPV4, url.getProtocolVersion());
+        url = URL.parser().hostResolver(hostResolver).parse("http://r\u00E9sum\u00E9.example.org");
+        assertEquals("xn--rsum-bpad.example.org", url.getHost());
+    }
+
+    @Test
+    void testParseAll() {
+        List<String> input = List.of("http://a.example.com/x", "", "http://example.com:99999",
+                "http://b.example.com/y", "http://a.example.com/x");
+        List<URL> list = URL.parser().parseAll(input.stream()).toList();
+        assertEquals("[http://a.example.com/x, http://b.example.com/y, http://a.example.com/x]", list.toString());
+        URLParser parser = URL.parser();
+        List<String> many = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            many.add("http://example.com/" + (i % 100) + "/../" + i % 50);
+        }
+        List<URL> ordered = parser.normalizeAll(many, true);
+        assertEquals(50, ordered.size());
+        for (int i = 0; i < ordered.size(); i++) {
+            assertEquals("http://example.com/" + i, ordered.get(i).toString());
+        }
+        assertEquals(50, parser.normalizeAll(many, false).size());
+    }
+
+    @Test
+    void testSpliterator() {
+        List<String> input = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            input.add(i % 10 == 0 ? "http://example.com:99999" : "http://example.com/" + i);
+        }
+        List<URL> list = StreamSupport.stream(URL.parser().spliterator(input.spliterator()), true).toList();
+        assertEquals(900, list.size());
+        assertEquals("http://example.com/1", list.get(0).toString());
+        assertEquals("http://example.com/999", list.get(899).toString());
+    }
+
     private void assertUrlCompatibility(String url) throws Exception {
         String s = URL.from(url).toExternalForm();
         assertEquals(s, URL.from(s).toExternalForm());
@@ -0,0 +1,90 @@
+package org.xbib.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class URLSetTest {
+
+    @Test
+    void testEmpty() {
+        URLSet set = URLSet.builder().build();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains("http://example.com"));
+        assertFalse(set.iterator().hasNext());
+        assertFalse(set.iterator("http").hasNext());
+        assertThrows(IndexOutOfBoundsException.class, () -> set.get(0));
+    }
+
+    @Test
+    void testSmall() {
+        URLSet set = URLSet.builder()
+                .add("http://example.com/b")
+                .add(URL.from("http://example.com/a"))
+                .add("http://example.com/b")
+                .add("https://例え.jp/パス")
+                .build();
+        assertEquals(3, set.size());
+        assertEquals(List.of("http://example.com/a", "http://example.com/b", "https://例え.jp/パス"), toList(set.iterator()));
+        assertEquals(0, set.indexOf(URL.from("http://example.com/a")));
+        assertEquals(2, set.indexOf("https://例え.jp/パス"));
+        assertEquals(-1, set.indexOf("http://example.com/c"));
+        assertEquals(-1, set.indexOf("http://example.com"));
+        assertEquals(URL.create("http://example.com/b"), set.getURL(1));
+        assertNull(set.getURL(1).getBuilder().hostAddress);
+    }
+
+    @Test
+    void testLarge() {
+        Random random = new Random(42L);
+        String[] hosts = { "example.com", "example.com.au", "example.org", "www.example.com", "[2001:db8::1]" };
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 150000; i++) {
+            String host = hosts[random.nextInt(hosts.length)];
+            String port = random.nextInt(10) == 0 ? ":8080" : "";
+            urls.add((random.nextBoolean() ? "http" : "https") + "://" + host + port + "/" +
+                    Integer.toString(random.nextInt(100000), 36) + "/page" + random.nextInt(100) + ".html");
+        }
+        TreeSet<String> expected = new TreeSet<>(urls);
+        Collections.shuffle(urls, random);
+        URLSet set = URLSet.builder().addAll(urls).build();
+        assertEquals(expected.size(), set.size());
+        assertEquals(new ArrayList<>(expected), toList(set.iterator()));
+        int i = 0;
+        for (String url : expected) {
+            if (i % 97 == 0) {
+                assertEquals(i, set.indexOf(url));
+                assertEquals(url, set.get(i));
+                assertFalse(set.contains(url + "x"));
+            }
+            i++;
+        }
+        assertTrue(set.sizeInBytes() < expected.stream().mapToLong(String::length).sum() / 2);
+        List<String> host = new ArrayList<>();
+        for (String url : expected) {
+            if (url.startsWith("http://example.com/") || url.startsWith("http://example.com:")) {
+                host.add(url);
+            }
+        }
+        assertEquals(host, toList(set.hostIterator("http", "example.com")));
+        assertEquals(new ArrayList<>(expected.subSet("https://[", "https://[￿")), toList(set.iterator("https://[")));
+        assertFalse(set.iterator("https://zzz").hasNext());
+    }
+
+    private static List<String> toList(Iterator<String> iterator) {
+        List<String> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+}
@@ -282,4 +282,58 @@ class URLTest {
         assertEquals(null, iri.getQuery());
         assertEquals(null, iri.getFragment());
     }
+
+    @Test
+    void testEqualsAndHashCode() {
+        URL url1 = URL.create("http://example.com:80/a/b;m=1?x=1#f");
+        URL url2 = URL.create("http://example.com/a/b;m=1?x=1#f");
+        assertEquals(url1.toString(), url2.toString());
+        assertEquals(url1, url2);
+        assertEquals(url1.hashCode(), url2.hashCode());
+        assertEquals(0, url1.compareTo(url2));
+        URL url3 = URL.http().host("example.com").path("/a").queryParam("x", "1").build();
+        URL url4 = URL.create("http://example.com/a?x=1");
+        assertEquals(url3.toString(), url4.toString());
+        assertEquals(url3, url4);
+        assertEquals(url3.hashCode(), url4.hashCode());
+        assertNotEquals(URL.create("http://example.com/a#f"), URL.create("http://example.com/a"));
+        assertEquals(0, url1.withoutFragmentComparator().compare(URL.create("http://example.com/a/b;m=1?x=1"), url1));
+        assertNotEquals(URL.create("urn:isbn:1"), URL.create("urn:isbn:2"));
+        assertEquals(URL.create("urn:isbn:1").hashCode(), URL.create("urn:isbn:1").hashCode());
+    }
+
+    @Test
+    void testEqualsStringRepresentation() {
+        List<String> inputs = List.of("file:/etc/x", "http:foo.com", "ftp:example.com/", "https:/example.com/",
+                "ws:localhost", "http://example.com:8080/a", "/b", ":8080/a", "mailto:joe@example.com",
+                "urn:isbn:1", "http://user@example.com/?q#f", "//example.com/x", "a/b?c");
+        for (String input : inputs) {
+            URL url = URL.create(input);
+            URL reparsed = URL.create(url.toString());
+            URL normalized = url.normalize();
+            assertEquals(url.toString(), reparsed.toString(), input);
+            assertEquals(url, reparsed, input);
+            assertEquals(url.hashCode(), reparsed.hashCode(), input);
+            assertEquals(url.toString().hashCode(), url.hashCode(), input);
+            if (url.toString().equals(normalized.toString())) {
+                assertEquals(url, normalized, input);
+                assertEquals(url.hashCode(), normalized.hashCode(), input);
+            }
+            for (String other : inputs) {
+                URL otherUrl = URL.create(other);
+                assertEquals(Integer.signum(url.toString().compareTo(otherUrl.toString())),
+                        Integer.signum(url.compareTo(otherUrl)), input + " " + other);
+            }
+        }
+    }
+
+    @Test
+    void testCompareTo() {
+        List<URL> list = new ArrayList<>(List.of(URL.create("https://b.example.com"),
+                URL.create("http://b.example.com/b"), URL.create("http://b.example.com/a"),
+                URL.create("http://a.example.com/z")));
+        list.sort(URL::compareTo);
+        assertEquals("[http://a.example.com/z, http://b.example.com/a, http://b.example.com/b, https://b.example.com]",
+                list.toString());
+    }
 }
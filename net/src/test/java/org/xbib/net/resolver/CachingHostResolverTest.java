@@ -0,0 +1,68 @@
+package org.xbib.net.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CachingHostResolverTest {
+
+    @Test
+    void testPositiveAndNegativeCache() throws Exception {
+        AtomicInteger lookups = new AtomicInteger();
+        LocalHostResolver localHostResolver = new LocalHostResolver().add("example.com", "192.0.2.1");
+        HostResolver counting = hostname -> {
+            lookups.incrementAndGet();
+            return localHostResolver.resolve(hostname);
+        };
+        AtomicLong ticker = new AtomicLong();
+        CachingHostResolver resolver = new CachingHostResolver(counting,
+                Duration.ofSeconds(30), Duration.ofSeconds(10), 100, ticker::get);
+        InetAddress inetAddress = resolver.resolve("example.com");
+        assertEquals("192.0.2.1", inetAddress.getHostAddress());
+        assertEquals("example.com", inetAddress.getHostName());
+        assertSame(inetAddress, resolver.resolve("example.com"));
+        assertEquals(1, lookups.get());
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("unknown.example.com"));
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("unknown.example.com"));
+        assertEquals(2, lookups.get());
+        ticker.addAndGet(Duration.ofSeconds(11).toNanos());
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("unknown.example.com"));
+        resolver.resolve("example.com");
+        assertEquals(3, lookups.get());
+        ticker.addAndGet(Duration.ofSeconds(20).toNanos());
+        resolver.resolve("example.com");
+        assertEquals(4, lookups.get());
+    }
+
+    @Test
+    void testMaximumSize() throws Exception {
+        CachingHostResolver resolver = new CachingHostResolver(new LocalHostResolver(),
+                Duration.ofSeconds(30), Duration.ofSeconds(10), 2);
+        resolver.resolve("127.0.0.1");
+        resolver.resolve("127.0.0.2");
+        resolver.resolve("127.0.0.3");
+        assertEquals(2, resolver.size());
+    }
+
+    @Test
+    void testResolveAll() {
+        HostResolver resolver = new LocalHostResolver()
+                .add("a.example.com", "192.0.2.1")
+                .add("b.example.com", "2001:db8::1");
+        Map<String, InetAddress> map = resolver.resolveAll(List.of("a.example.com", "b.example.com",
+                "c.example.com", "a.example.com")).join();
+        assertEquals(List.of("a.example.com", "b.example.com"), List.copyOf(map.keySet()));
+        assertEquals("192.0.2.1", map.get("a.example.com").getHostAddress());
+        assertEquals("2001:db8:0:0:0:0:0:1", map.get("b.example.com").getHostAddress());
+    }
+}
@@ -3,16 +3,17 @@ package org.xbib.net.resource;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.xbib.net.IRI;
+import org.xbib.net.IRISyntaxException;
 
 import java.net.URI;
-import java.net.URISyntaxException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
-@Disabled
 class IRITest {
 
+    @Disabled("the ASCII form of the path encodes its slashes")
     @Test
     public void testSimple() throws Exception {
         IRI iri = IRI.create("http://validator.w3.org/check?uri=http%3A%2F%2Fr\u00E9sum\u00E9.example.org");
@@ -37,6 +38,7 @@ class IRITest {
         assertEquals("http://[2001:0db8:85a3:08d3:1319:8a2e:0370:7344]", iri.toURI().toString());
     }
 
+    @Disabled("the ASCII form of the path encodes its slashes")
     @Test
     public void testUnderscore() throws Exception{
         IRI iri = IRI.create("http://its_gbsc.cn.ibm.com/");
@@ -44,29 +46,102 @@ class IRITest {
     }
 
     @Test
-    public void testIpv6Invalid() throws URISyntaxException {
-        IRI iri = IRI.create("http://[2001:0db8:85a3:08d3:1319:8a2e:0370:734o]");
-        iri.toURI().toString();
+    public void testIpv6Invalid() {
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://[2001:0db8:85a3:08d3:1319:8a2e:0370:734o]"));
     }
 
+    @Test
+    public void testIpv6WithoutPort() {
+        IRI iri = IRI.create("http://[2001:db8::1]/a?b#c");
+        assertEquals("[2001:db8::1]", iri.getHost());
+        assertEquals(-1, iri.getPort());
+        assertEquals("[2001:db8::1]", iri.getAuthority());
+        assertEquals("/a", iri.getPath());
+        assertEquals("b", iri.getQuery());
+        assertEquals("c", iri.getFragment());
+        assertEquals("[2001:db8::1]", iri.getASCIIHost());
+    }
+
+    @Test
+    public void testIpv6WithPort() {
+        IRI iri = IRI.create("http://[::ffff:192.0.2.1]:8080/a");
+        assertEquals("[::ffff:192.0.2.1]", iri.getHost());
+        assertEquals(8080, iri.getPort());
+        assertEquals("/a", iri.getPath());
+        iri = IRI.create("http://[2001:db8::1]:8080");
+        assertEquals("[2001:db8::1]", iri.getHost());
+        assertEquals(8080, iri.getPort());
+        assertEquals("", iri.getPath());
+        iri = IRI.create("http://[v1.fe80::a+en1]:80/");
+        assertEquals("[v1.fe80::a+en1]", iri.getHost());
+        assertEquals(80, iri.getPort());
+    }
+
+    @Test
+    public void testUserInfoAndIpLiteral() {
+        IRI iri = IRI.create("http://user:pass@[2001:db8::1]:8080/a");
+        assertEquals("user:pass", iri.getUserInfo());
+        assertEquals("[2001:db8::1]", iri.getHost());
+        assertEquals(8080, iri.getPort());
+        assertEquals("user:pass@[2001:db8::1]:8080", iri.getAuthority());
+        iri = IRI.create("ftp://us\u00E9r@127.0.0.1/x");
+        assertEquals("us\u00E9r", iri.getUserInfo());
+        assertEquals("127.0.0.1", iri.getHost());
+        assertEquals(-1, iri.getPort());
+        assertEquals("us%C3%A9r", iri.getASCIIUserInfo());
+    }
+
+    @Test
+    public void testInvalidIpLiteral() {
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://[2001:db8::1/"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://[2001:db8::1]x/"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://[2001:db8::1]x:80/"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://[]/"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://[v1]/"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://[vx.1]/"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://user@[2001:db8::\u0661]/"));
+    }
+
+    @Test
+    public void testInvalidCharacters() {
+        assertThrows(IRISyntaxException.class, () -> IRI.create("ht tp://example.org/"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("h^p://example.org/"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://us er@example.org/"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://us[er@example.org/"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://a@b@[::1]/"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://exa mple.org/"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://example.org:8a/"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://example.org/a b"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://example.org/a\u0000"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://example.org/?a<b"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://example.org/#a b"));
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://example.org/#a#b"));
+        // unpaired surrogate
+        assertThrows(IRISyntaxException.class, () -> IRI.create("http://example.org/\uD800"));
+    }
+
+    @Disabled("the ASCII form of the path encodes its slashes")
     @Test
     public void testFile() throws Exception {
         IRI iri = IRI.create("file:///tmp/test/foo");
         assertEquals("file:///tmp/test/foo", iri.toURI().toString());
     }
 
+    @Disabled("the ASCII form of the path encodes its slashes")
     @Test
     public void testSimple2() throws Exception {
         IRI iri = IRI.create("http://www.example.org/red%09ros\u00E9#red");
         assertEquals("http://www.example.org/red%09ros%C3%A9#red", iri.toURI().toString());
     }
 
+    @Disabled("the ASCII form of the path encodes its slashes")
     @Test
     public void testNotSoSimple() throws Exception {
         IRI iri = IRI.create("http://example.com/\uD800\uDF00\uD800\uDF01\uD800\uDF02");
         assertEquals("http://example.com/%F0%90%8C%80%F0%90%8C%81%F0%90%8C%82", iri.toURI().toString());
     }
 
+    @Disabled("the ASCII form of the path encodes its slashes")
     @Test
     public void testIRItoURI() throws Exception {
         IRI iri = IRI.create("http://\u7D0D\u8C46.example.org/%E2%80%AE");
@@ -116,6 +191,7 @@ class IRITest {
         assertEquals("xn--rsum-bpad.example.org", iri1.getASCIIHost());
     }
 
+    @Disabled("resolving a reference drops the authority of the base")
     @Test
     public void testRelative() throws Exception {
         IRI base = IRI.create("http://example.org/foo/");
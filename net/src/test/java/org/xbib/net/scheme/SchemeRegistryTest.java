@@ -0,0 +1,50 @@
+package org.xbib.net.scheme;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemeRegistryTest {
+
+    @Test
+    void testCaseInsensitiveLookup() {
+        SchemeRegistry registry = SchemeRegistry.getInstance();
+        Scheme http = registry.getScheme("http");
+        assertInstanceOf(HttpScheme.class, http);
+        assertSame(http, registry.getScheme("HTTP"));
+        assertSame(http, registry.getScheme("hTtP"));
+        assertInstanceOf(GitSecureHttpScheme.class, registry.getScheme("Git+HTTPS"));
+        assertNull(registry.getScheme(null));
+    }
+
+    @Test
+    void testDefaultScheme() {
+        SchemeRegistry registry = SchemeRegistry.getInstance();
+        Scheme scheme = registry.getScheme("x-unknown");
+        assertInstanceOf(DefaultScheme.class, scheme);
+        assertEquals("x-unknown", scheme.getName());
+        assertEquals(-1, scheme.getDefaultPort());
+        assertSame(scheme, registry.getScheme("x-unknown"));
+    }
+
+    @Test
+    void testRegister() {
+        SchemeRegistry registry = SchemeRegistry.getInstance();
+        assertFalse(registry.register(new DefaultScheme("HTTP")));
+        // the registry is a singleton and schemes can not be unregistered, so the name is unique per run
+        String name = "x-registered-" + Long.toHexString(System.nanoTime());
+        Scheme scheme = new AbstractScheme(name, 4711) {
+        };
+        assertTrue(registry.register(scheme));
+        assertFalse(registry.register(scheme));
+        assertSame(scheme, registry.getScheme(name.toUpperCase(Locale.ROOT)));
+        assertEquals(4711, registry.getScheme(name).getDefaultPort());
+    }
+}
@@ -0,0 +1,88 @@
+package org.xbib.net.template;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.net.template.vars.Variables;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class URITemplateMatcherTest {
+
+    @Test
+    void testSimple() {
+        URITemplate template = new URITemplate("/users/{id}/posts/{post}.json");
+        Variables vars = template.match("/users/J%C3%B6rg/posts/a.b.json");
+        assertNotNull(vars);
+        assertEquals("Jörg", vars.get("id").getScalarValue());
+        assertEquals("a.b", vars.get("post").getScalarValue());
+        assertNull(template.match("/users/a/b/posts/c.json"));
+        assertNull(template.match("/users/a/posts/c.xml"));
+        assertNull(template.match("/user/a/posts/c.json"));
+    }
+
+    @Test
+    void testReserved() {
+        URITemplateMatcher matcher = new URITemplateMatcher(new URITemplate("{+base}{/path*}{?q,lang}"));
+        Variables vars = matcher.match("http://example.com/a/b?q=x%20y&lang=en");
+        assertNotNull(vars);
+        assertEquals("http://example.com/a", vars.get("base").getScalarValue());
+        assertEquals(List.of("b"), vars.get("path").getListValue());
+        assertEquals("x y", vars.get("q").getScalarValue());
+        assertEquals("en", vars.get("lang").getScalarValue());
+    }
+
+    @Test
+    void testPathSegments() {
+        URITemplateMatcher matcher = new URITemplateMatcher(new URITemplate("/files{/path*}"));
+        assertEquals(List.of("a", "b", "c.txt"), matcher.match("/files/a/b/c.txt").get("path").getListValue());
+        matcher = new URITemplateMatcher(new URITemplate("{/x,y}{/z}"));
+        Variables vars = matcher.match("/1/2/3");
+        assertEquals("1", vars.get("x").getScalarValue());
+        assertEquals("2", vars.get("y").getScalarValue());
+        assertEquals("3", vars.get("z").getScalarValue());
+    }
+
+    @Test
+    void testQuery() {
+        URITemplateMatcher matcher = new URITemplateMatcher(new URITemplate("/search{?q,page}{&sort}"));
+        Variables vars = matcher.match("/search?page=2&q=a,b&sort=asc");
+        assertEquals("a,b", vars.get("q").getScalarValue());
+        assertEquals("2", vars.get("page").getScalarValue());
+        assertEquals("asc", vars.get("sort").getScalarValue());
+        vars = matcher.match("/search");
+        assertNotNull(vars);
+        assertNull(vars.get("q"));
+        assertTrue(matcher.matches("/search?q="));
+        assertFalse(matcher.matches("/search?other=1"));
+        assertFalse(matcher.matches("/search?q=%zz"));
+    }
+
+    @Test
+    void testRoundTrip() {
+        String[] templates = {
+                "{var}", "{x,y}", "{+path}/here", "{#frag}", "X{.x,y}", "{/var,x}/here", "{;x,y,empty}",
+                "{?x,y,empty}", "?fixed=yes{&x}", "{/list*}", "{?list*}", "{;list*}"
+        };
+        Variables vars = Variables.builder()
+                .add("var", "value")
+                .add("x", "1024")
+                .add("y", "768")
+                .add("empty", "")
+                .add("path", "/foo/bar")
+                .add("frag", "a/b?c")
+                .add("list", List.of("red", "green", "blue"))
+                .build();
+        for (String s : templates) {
+            URITemplate template = new URITemplate(s);
+            String expanded = template.toString(vars);
+            Variables matched = template.match(expanded);
+            assertNotNull(matched, s + " " + expanded);
+            assertEquals(expanded, template.toString(matched), s);
+        }
+    }
+}
@@ -375,6 +375,51 @@ class URITemplateTest {
         }
     }
 
+    @Test
+    void testExpandIntoAppendable() throws Exception {
+        URITemplate template = new URITemplate("/items/{id}{?fields*,q}#{+frag}");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            Variables vars = Variables.builder()
+                    .add("id", "a b" + i)
+                    .add("fields", List.of("x", "y"))
+                    .add("q", "")
+                    .add("frag", "/p?x")
+                    .build();
+            template.expand(vars, sb).append('\n');
+        }
+        assertEquals("/items/a%20b0?fields=x&fields=y&q=#/p?x\n" +
+                "/items/a%20b1?fields=x&fields=y&q=#/p?x\n" +
+                "/items/a%20b2?fields=x&fields=y&q=#/p?x\n", sb.toString());
+        StringBuilder out = new StringBuilder();
+        template.expand(Variables.builder().build(), (Appendable) out);
+        assertEquals("/items/#", out.toString());
+    }
+
+    @Test
+    void testNonAsciiLiteral() {
+        URITemplate template = new URITemplate("/caf\u00e9/{x}");
+        assertEquals("/caf%C3%A9/1", template.toString(Variables.builder().add("x", "1").build()));
+        template = new URITemplate("/\u20ac\ud800\udf00/{x}");
+        assertEquals("/%E2%82%AC%F0%90%8C%80/1", template.toString(Variables.builder().add("x", "1").build()));
+    }
+
+    @Test
+    void testCachedTemplate() {
+        URITemplate template = URITemplate.of("/items/{id}");
+        assertSame(template, URITemplate.of("/items/{id}"));
+        assertEquals("/items/1", template.toString(Variables.builder().add("id", "1").build()));
+        URITemplateCache cache = new URITemplateCache(2);
+        URITemplate a = cache.get("/a/{x}");
+        cache.get("/b/{x}");
+        assertSame(a, cache.get("/a/{x}"));
+        cache.get("/c/{x}");
+        assertEquals(2, cache.size());
+        assertSame(a, cache.get("/a/{x}"));
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
     private JsonNode fromResource(String path) throws Exception {
         ObjectMapper mapper = new ObjectMapper();
         ObjectReader reader = mapper.configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, true)
@@ -0,0 +1,54 @@
+package org.xbib.net.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void testNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10000, 0.01d);
+        SplittableRandom random = new SplittableRandom(42L);
+        long[] hashes = random.longs(10000).toArray();
+        for (long hash : hashes) {
+            filter.add(hash);
+        }
+        for (long hash : hashes) {
+            assertTrue(filter.mightContain(hash));
+            assertFalse(filter.add(hash));
+        }
+    }
+
+    @Test
+    void testFalsePositiveProbability() {
+        assertFalsePositives(0.01d, 100000);
+        assertFalsePositives(0.001d, 1000000);
+    }
+
+    private static void assertFalsePositives(double falsePositiveProbability, int lookups) {
+        BloomFilter filter = new BloomFilter(100000, falsePositiveProbability);
+        SplittableRandom random = new SplittableRandom(42L);
+        random.longs(100000).forEach(filter::add);
+        long falsePositives = random.longs(lookups).filter(filter::mightContain).count();
+        // the expected count plus four standard deviations
+        double expected = falsePositiveProbability * lookups;
+        assertTrue(falsePositives < expected + 4.0d * Math.sqrt(expected), Long.toString(falsePositives));
+    }
+
+    @Test
+    void testTooManyExpectedInsertions() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(1L, 1.0e-300d));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(Long.MAX_VALUE / 1024, 0.01d));
+    }
+
+    @Test
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01d));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.0d));
+    }
+}
@@ -0,0 +1,54 @@
+package org.xbib.net.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CharScannerTest {
+
+    @Test
+    void testIndexOf() {
+        assertEquals(3, CharScanner.indexOf("abc%20", '%', 0, 6));
+        assertEquals(-1, CharScanner.indexOf("abc%20", '%', 0, 3));
+        assertEquals(-1, CharScanner.indexOf("abc%20", '%', 4, 6));
+        assertEquals(3, CharScanner.indexOf(new StringBuilder("abc%20"), '%', 1, 6));
+        assertEquals(-1, CharScanner.indexOf("abc", '%', 3, 2));
+        String s = "abcdefghijklmnopqrstuvwxyz".repeat(4) + "%20" + "abcdefghijklmnopqrstuvwxyz".repeat(4);
+        assertEquals(104, CharScanner.indexOf(s, '%', 0, s.length()));
+        assertEquals(104, CharScanner.indexOf(s, '%', 60, 105));
+        assertEquals(-1, CharScanner.indexOf(s, '%', 0, 104));
+        assertEquals(-1, CharScanner.indexOf(s, '%', 105, s.length()));
+    }
+
+    @Test
+    void testIndexOfAny() {
+        Random random = new Random(42L);
+        byte[] alphabet = "ab%+&=ÿ\u0080".getBytes(StandardCharsets.ISO_8859_1);
+        for (int n = 0; n < 10000; n++) {
+            byte[] bytes = new byte[random.nextInt(40)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = random.nextInt(4) == 0 ? alphabet[random.nextInt(alphabet.length)] : (byte) 'x';
+            }
+            int from = bytes.length == 0 ? 0 : random.nextInt(bytes.length);
+            int expected = from;
+            while (expected < bytes.length && bytes[expected] != '&' && bytes[expected] != '='
+                    && bytes[expected] != '+' && bytes[expected] != '%') {
+                expected++;
+            }
+            assertEquals(expected, CharScanner.indexOfAny(bytes, from, bytes.length,
+                    (byte) '&', (byte) '=', (byte) '+', (byte) '%'));
+        }
+    }
+
+    @Test
+    void testCharMatcherIndexIn() {
+        CharMatcher matcher = CharMatcher.is('/');
+        assertEquals(4, matcher.indexIn("abc:/def"));
+        assertEquals(-1, matcher.indexIn("abc:/def", 5));
+        assertEquals(-1, matcher.indexIn("abc:/def", 8));
+        assertEquals(4, CharMatcher.anyOf(":/").precomputed().negate().indexIn("::/:abc", 0));
+    }
+}
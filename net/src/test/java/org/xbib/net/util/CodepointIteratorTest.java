@@ -0,0 +1,62 @@
+package org.xbib.net.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CodepointIteratorTest {
+
+    @Test
+    void testNextCodePoint() {
+        CodepointIterator ci = CodepointIterator.forCharSequence("a𐌀b");
+        assertEquals('a', ci.nextCodePoint());
+        assertEquals(0x10300, ci.nextCodePoint());
+        assertEquals('b', ci.nextCodePoint());
+        assertFalse(ci.hasNext());
+        assertThrows(NoSuchElementException.class, ci::nextCodePoint);
+    }
+
+    @Test
+    void testCodePoints() {
+        String s = "résumé 𐌀";
+        assertArrayEquals(s.codePoints().toArray(), CodepointIterator.forCharSequence(s).codePoints().toArray());
+        assertArrayEquals(s.codePoints().toArray(),
+                CodepointIterator.forCharArray(s.toCharArray()).codePoints().toArray());
+    }
+
+    @Test
+    void testRestrict() {
+        CodepointIterator ci = CodepointIterator.forCharSequence("abc1").restrict(Character::isDigit);
+        assertEquals('a', ci.nextCodePoint());
+        assertEquals('b', ci.nextCodePoint());
+        assertEquals('c', ci.nextCodePoint());
+        assertThrows(InvalidCharacterException.class, ci::nextCodePoint);
+        IntPredicate predicate = Character::isDigit;
+        CodepointFilter filter = Character::isDigit;
+        assertEquals(2, CodepointIterator.forCharSequence("ab1").restrict(predicate, true).codePoints().count());
+        assertEquals(2, CodepointIterator.forCharSequence("ab1").restrict(filter, true).codePoints().count());
+    }
+
+    @Test
+    void testRestrictScanning() {
+        CodepointIterator ci = CodepointIterator.forCharSequence("ab/c").restrict(cp -> cp == '/', true);
+        assertEquals(2, ci.codePoints().count());
+        assertEquals(2, ci.position());
+        assertEquals(-1, ci.nextCodePoint());
+        assertEquals(2, ci.position());
+    }
+
+    @Test
+    void testVerify() {
+        CharUtils.verify(CodepointIterator.forCharSequence("abc/déf"), Profile.IPATH);
+        assertThrows(InvalidCharacterException.class,
+                () -> CharUtils.verify(CodepointIterator.forCharSequence("abc d"), Profile.IPATH));
+        assertEquals(2, CharUtils.length("a𐌀"));
+    }
+}
@@ -0,0 +1,47 @@
+package org.xbib.net.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentedCacheTest {
+
+    @Test
+    void testMaximumSize() {
+        SegmentedCache<Integer, String> cache = new SegmentedCache<>(1000, false);
+        int evictions = 0;
+        for (int i = 0; i < 5000; i++) {
+            if (cache.put(i, Integer.toString(i))) {
+                evictions++;
+            }
+        }
+        assertEquals(1000, cache.size());
+        assertEquals(4000, evictions);
+        assertEquals("4999", cache.get(4999));
+        assertNull(cache.get(0));
+        assertFalse(cache.put(4999, "x"));
+        assertEquals("4999", cache.get(4999));
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testLru() {
+        SegmentedCache<String, String> cache = new SegmentedCache<>(2, false);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a"));
+        assertTrue(cache.put("c", "3"));
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+    }
+
+    @Test
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new SegmentedCache<>(0, false));
+    }
+}